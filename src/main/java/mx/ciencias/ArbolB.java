@@ -0,0 +1,502 @@
+package mx.ciencias;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * <p>Clase para árboles B+ ordenados.</p>
+ *
+ * <p>Cada vértice guarda hasta {@link #ORDEN} elementos en un arreglo
+ * ordenado, que ocupa unas cuantas líneas de caché. Los elementos sólo están
+ * en las hojas; los vértices internos guardan separadores para elegir el hijo
+ * por donde bajar. Como cada vértice tiene decenas de hijos, con un millón de
+ * elementos el árbol tiene alrededor de cuatro niveles, así que una búsqueda
+ * visita cuatro vértices en lugar de los veinte o más de un {@link
+ * ArbolRojinegro}, y dentro de cada vértice hace una búsqueda binaria en un
+ * arreglo contiguo.</p>
+ *
+ * <p>Las hojas están ligadas en orden, así que recorrer el árbol en orden es
+ * una lectura secuencial de las hojas, sin pila.</p>
+ *
+ * <p>El árbol cumple que:</p>
+ * <ul>
+ *   <li>Todas las hojas están en el mismo nivel.</li>
+ *   <li>Todo vértice distinto de la raíz tiene al menos la mitad de su
+ *       capacidad ocupada.</li>
+ *   <li>Si <em>s</em> es el separador entre los hijos <em>i</em> e
+ *       <em>i</em>+1 de un vértice interno, los elementos del hijo
+ *       <em>i</em> son menores o iguales que <em>s</em>, y los del hijo
+ *       <em>i</em>+1 son mayores o iguales.</li>
+ * </ul>
+ */
+public class ArbolB<T> implements Coleccion<T> {
+
+    /** El número máximo de elementos de una hoja y de separadores de un
+        vértice interno. */
+    public static final int ORDEN = 64;
+
+    /* El número mínimo de elementos de una hoja. Un vértice interno debe
+       tener al menos MINIMO hijos. */
+    private static final int MINIMO = ORDEN / 2;
+
+    /* Clase interna privada para vértices. Los arreglos tienen lugar para un
+       elemento de más, que se usa mientras el vértice se parte. */
+    private static class Vertice {
+	/* Los elementos (en las hojas) o los separadores (en los vértices
+	   internos), en orden. */
+	public Object[] elementos = new Object[ORDEN + 1];
+	/* El número de elementos o separadores. */
+	public int n;
+    }
+
+    /* Clase interna privada para hojas. */
+    private static final class Hoja extends Vertice {
+	/* La hoja siguiente en orden, o null. */
+	public Hoja siguiente;
+    }
+
+    /* Clase interna privada para vértices internos. */
+    private static final class Interno extends Vertice {
+	/* Los hijos; hay uno más que separadores. */
+	public Vertice[] hijos = new Vertice[ORDEN + 2];
+    }
+
+    /* Clase interna privada para iteradores. */
+    private class Iterador implements Iterator<T> {
+
+	/* La hoja actual. */
+	private Hoja hoja;
+	/* La posición del siguiente elemento en la hoja. */
+	private int i;
+
+	/* Inicializa al iterador en la primera hoja. */
+	private Iterador() {
+	    hoja = primera;
+	    avanza();
+	}
+
+	/* Salta las hojas agotadas. */
+	private void avanza() {
+	    while(hoja != null && i == hoja.n){
+		hoja = hoja.siguiente;
+		i = 0;
+	    }
+	}
+
+	/* Nos dice si hay un elemento siguiente. */
+	@Override public boolean hasNext() {
+	    return hoja != null;
+	}
+
+	/* Regresa el siguiente elemento en orden. */
+	@Override public T next() {
+	    if(hoja == null)
+		throw new NoSuchElementException();
+	    T elemento = elemento(hoja.elementos[i++]);
+	    avanza();
+	    return elemento;
+	}
+    }
+
+    /* La raíz del árbol. */
+    private Vertice raiz;
+    /* La primera hoja. */
+    private Hoja primera;
+    /* El número de elementos. */
+    private int elementos;
+    /* El comparador que define el orden de los elementos. */
+    private Comparator<? super T> comparador;
+    /* El separador que sube cuando un vértice se parte al agregar. */
+    private Object separador;
+
+    /**
+     * Constructor sin parámetros. Los elementos se ordenan con su orden
+     * natural.
+     */
+    @SuppressWarnings("unchecked") public ArbolB() {
+	this((a, b) -> ((Comparable<? super T>)a).compareTo(b));
+    }
+
+    /**
+     * Construye un árbol B+ vacío cuyos elementos se ordenan con el
+     * comparador recibido.
+     * @param comparador el comparador que define el orden de los elementos.
+     * @throws IllegalArgumentException si <code>comparador</code> es
+     *         <code>null</code>.
+     */
+    public ArbolB(Comparator<? super T> comparador) {
+	if(comparador == null)
+	    throw new IllegalArgumentException();
+	this.comparador = comparador;
+	limpia();
+    }
+
+    /**
+     * Construye un árbol B+ a partir de una colección. El árbol tiene los
+     * mismos elementos que la colección recibida, ordenados con su orden
+     * natural.
+     * @param coleccion la colección a partir de la cual creamos el árbol.
+     */
+    public ArbolB(Coleccion<T> coleccion) {
+	this();
+	for(T t: coleccion)
+	    agrega(t);
+    }
+
+    /* Convierte un objeto de un arreglo de elementos en elemento. */
+    @SuppressWarnings("unchecked") private T elemento(Object objeto) {
+	return (T)objeto;
+    }
+
+    /* Regresa el número de elementos del vértice menores que el elemento
+       (si estricto) o menores o iguales (si no). */
+    private int posicion(Vertice vertice, T elemento, boolean estricto) {
+	int a = 0, b = vertice.n;
+	while(a < b){
+	    int m = (a + b) >>> 1;
+	    int c = comparador.compare(elemento(vertice.elementos[m]), elemento);
+	    if(c < 0 || (c == 0 && !estricto))
+		a = m + 1;
+	    else
+		b = m;
+	}
+	return a;
+    }
+
+    /**
+     * Agrega un elemento al árbol, después de los elementos iguales que ya
+     * tenga.
+     * @param elemento el elemento a agregar.
+     * @throws IllegalArgumentException si <code>elemento</code> es
+     *         <code>null</code>.
+     */
+    @Override public void agrega(T elemento) {
+	if(elemento == null)
+	    throw new IllegalArgumentException();
+	Vertice nuevo = agrega(raiz, elemento);
+	elementos++;
+	if(nuevo == null)
+	    return;
+	Interno r = new Interno();
+	r.elementos[0] = separador;
+	r.hijos[0] = raiz;
+	r.hijos[1] = nuevo;
+	r.n = 1;
+	raiz = r;
+    }
+
+    /* Agrega el elemento al subárbol. Si el vértice se parte, regresa el
+       nuevo hermano derecho y deja en separador el elemento que sube. */
+    private Vertice agrega(Vertice vertice, T elemento) {
+	int i = posicion(vertice, elemento, false);
+	if(vertice instanceof Hoja){
+	    inserta(vertice.elementos, vertice.n++, i, elemento);
+	    return vertice.n > ORDEN ? parte((Hoja)vertice) : null;
+	}
+	Interno interno = (Interno)vertice;
+	Vertice nuevo = agrega(interno.hijos[i], elemento);
+	if(nuevo == null)
+	    return null;
+	inserta(interno.elementos, interno.n, i, separador);
+	inserta(interno.hijos, interno.n + 1, i + 1, nuevo);
+	interno.n++;
+	return interno.n > ORDEN ? parte(interno) : null;
+    }
+
+    /* Inserta un objeto en la posición i de los primeros n del arreglo. */
+    private static void inserta(Object[] arreglo, int n, int i, Object objeto) {
+	System.arraycopy(arreglo, i, arreglo, i + 1, n - i);
+	arreglo[i] = objeto;
+    }
+
+    /* Quita el objeto en la posición i de los primeros n del arreglo. */
+    private static void quita(Object[] arreglo, int n, int i) {
+	System.arraycopy(arreglo, i + 1, arreglo, i, n - i - 1);
+	arreglo[n - 1] = null;
+    }
+
+    /* Parte una hoja llena a la mitad; el separador es el primer elemento de
+       la nueva hoja. */
+    private Hoja parte(Hoja hoja) {
+	Hoja nueva = new Hoja();
+	int m = hoja.n / 2;
+	nueva.n = hoja.n - m;
+	System.arraycopy(hoja.elementos, m, nueva.elementos, 0, nueva.n);
+	Arrays.fill(hoja.elementos, m, hoja.n, null);
+	hoja.n = m;
+	nueva.siguiente = hoja.siguiente;
+	hoja.siguiente = nueva;
+	separador = nueva.elementos[0];
+	return nueva;
+    }
+
+    /* Parte un vértice interno lleno; el separador de en medio sube. */
+    private Interno parte(Interno interno) {
+	Interno nuevo = new Interno();
+	int m = interno.n / 2;
+	separador = interno.elementos[m];
+	nuevo.n = interno.n - m - 1;
+	System.arraycopy(interno.elementos, m + 1, nuevo.elementos, 0, nuevo.n);
+	System.arraycopy(interno.hijos, m + 1, nuevo.hijos, 0, nuevo.n + 1);
+	Arrays.fill(interno.elementos, m, interno.n, null);
+	Arrays.fill(interno.hijos, m + 1, interno.n + 1, null);
+	interno.n = m;
+	return nuevo;
+    }
+
+    /**
+     * Elimina un elemento del árbol. Si el elemento está repetido, sólo
+     * elimina una de sus apariciones.
+     * @param elemento el elemento a eliminar.
+     */
+    @Override public void elimina(T elemento) {
+	if(elemento == null || !elimina(raiz, elemento))
+	    return;
+	elementos--;
+	if(raiz instanceof Interno && raiz.n == 0)
+	    raiz = ((Interno)raiz).hijos[0];
+    }
+
+    /* Elimina el elemento del subárbol y rebalancea los hijos que queden con
+       menos del mínimo. Regresa si el elemento estaba en el subárbol. */
+    private boolean elimina(Vertice vertice, T elemento) {
+	int i = posicion(vertice, elemento, true);
+	if(vertice instanceof Hoja){
+	    if(i == vertice.n ||
+	       comparador.compare(elemento(vertice.elementos[i]), elemento) != 0)
+		return false;
+	    quita(vertice.elementos, vertice.n--, i);
+	    return true;
+	}
+	Interno interno = (Interno)vertice;
+	/* Si el elemento es igual a un separador, puede estar en el hijo de la
+	   derecha del separador. */
+	while(!elimina(interno.hijos[i], elemento)){
+	    if(i == interno.n ||
+	       comparador.compare(elemento(interno.elementos[i]), elemento) != 0)
+		return false;
+	    i++;
+	}
+	if(deficiente(interno.hijos[i]))
+	    rebalancea(interno, i);
+	return true;
+    }
+
+    /* Nos dice si el vértice tiene menos del mínimo. */
+    private static boolean deficiente(Vertice vertice) {
+	return vertice instanceof Hoja ? vertice.n < MINIMO : vertice.n + 1 < MINIMO;
+    }
+
+    /* Nos dice si el vértice puede prestar un elemento a un hermano. */
+    private static boolean sobrado(Vertice vertice) {
+	return vertice instanceof Hoja ? vertice.n > MINIMO : vertice.n + 1 > MINIMO;
+    }
+
+    /* Completa el hijo i del vértice pidiendo prestado un elemento a un
+       hermano o, si ninguno tiene de sobra, fundiéndolo con uno. */
+    private void rebalancea(Interno padre, int i) {
+	if(i > 0 && sobrado(padre.hijos[i - 1]))
+	    prestaIzquierdo(padre, i);
+	else if(i < padre.n && sobrado(padre.hijos[i + 1]))
+	    prestaDerecho(padre, i);
+	else if(i > 0)
+	    funde(padre, i - 1);
+	else
+	    funde(padre, i);
+    }
+
+    /* Pasa el último elemento del hermano izquierdo al hijo i. */
+    private void prestaIzquierdo(Interno padre, int i) {
+	Vertice hijo = padre.hijos[i], izquierdo = padre.hijos[i - 1];
+	if(hijo instanceof Hoja){
+	    inserta(hijo.elementos, hijo.n++, 0, izquierdo.elementos[izquierdo.n - 1]);
+	    izquierdo.elementos[--izquierdo.n] = null;
+	    padre.elementos[i - 1] = hijo.elementos[0];
+	    return;
+	}
+	Interno h = (Interno)hijo, iz = (Interno)izquierdo;
+	inserta(h.elementos, h.n, 0, padre.elementos[i - 1]);
+	inserta(h.hijos, h.n + 1, 0, iz.hijos[iz.n]);
+	h.n++;
+	padre.elementos[i - 1] = iz.elementos[iz.n - 1];
+	iz.elementos[iz.n - 1] = null;
+	iz.hijos[iz.n] = null;
+	iz.n--;
+    }
+
+    /* Pasa el primer elemento del hermano derecho al hijo i. */
+    private void prestaDerecho(Interno padre, int i) {
+	Vertice hijo = padre.hijos[i], derecho = padre.hijos[i + 1];
+	if(hijo instanceof Hoja){
+	    hijo.elementos[hijo.n++] = derecho.elementos[0];
+	    quita(derecho.elementos, derecho.n--, 0);
+	    padre.elementos[i] = derecho.elementos[0];
+	    return;
+	}
+	Interno h = (Interno)hijo, de = (Interno)derecho;
+	h.elementos[h.n] = padre.elementos[i];
+	h.hijos[h.n + 1] = de.hijos[0];
+	h.n++;
+	padre.elementos[i] = de.elementos[0];
+	quita(de.elementos, de.n, 0);
+	quita(de.hijos, de.n + 1, 0);
+	de.n--;
+    }
+
+    /* Funde los hijos i e i+1 del vértice en el hijo i. */
+    private void funde(Interno padre, int i) {
+	Vertice izquierdo = padre.hijos[i], derecho = padre.hijos[i + 1];
+	if(izquierdo instanceof Hoja){
+	    System.arraycopy(derecho.elementos, 0, izquierdo.elementos, izquierdo.n, derecho.n);
+	    izquierdo.n += derecho.n;
+	    ((Hoja)izquierdo).siguiente = ((Hoja)derecho).siguiente;
+	} else{
+	    Interno iz = (Interno)izquierdo, de = (Interno)derecho;
+	    iz.elementos[iz.n] = padre.elementos[i];
+	    System.arraycopy(de.elementos, 0, iz.elementos, iz.n + 1, de.n);
+	    System.arraycopy(de.hijos, 0, iz.hijos, iz.n + 1, de.n + 1);
+	    iz.n += de.n + 1;
+	}
+	quita(padre.elementos, padre.n, i);
+	quita(padre.hijos, padre.n + 1, i + 1);
+	padre.n--;
+    }
+
+    /**
+     * Elimina todos los elementos que cumplen una condición, reconstruyendo
+     * el árbol en tiempo lineal con los elementos que quedan.
+     * @param condicion la condición que cumplen los elementos a eliminar.
+     * @return el número de elementos eliminados.
+     */
+    @Override public int eliminaSi(Predicate<? super T> condicion) {
+	Object[] quedan = new Object[elementos];
+	int q = 0;
+	for(T elemento: this)
+	    if(!condicion.test(elemento))
+		quedan[q++] = elemento;
+	int eliminados = elementos - q;
+	if(eliminados > 0)
+	    reconstruye(quedan, q);
+	return eliminados;
+    }
+
+    /* Reemplaza los elementos del árbol por los primeros n del arreglo, que
+       deben estar en orden. Los elementos se reparten parejo entre el mínimo
+       número de hojas llenas, y cada nivel de vértices internos igual. */
+    private void reconstruye(Object[] ordenados, int n) {
+	limpia();
+	if(n == 0)
+	    return;
+	int hojas = (n + ORDEN - 1) / ORDEN;
+	Vertice[] nivel = new Vertice[hojas];
+	Object[] minimos = new Object[hojas];
+	Hoja anterior = null;
+	for(int h = 0, k = 0; h < hojas; h++){
+	    Hoja hoja = new Hoja();
+	    hoja.n = n / hojas + (h < n % hojas ? 1 : 0);
+	    System.arraycopy(ordenados, k, hoja.elementos, 0, hoja.n);
+	    minimos[h] = ordenados[k];
+	    k += hoja.n;
+	    if(anterior == null)
+		primera = hoja;
+	    else
+		anterior.siguiente = hoja;
+	    anterior = hoja;
+	    nivel[h] = hoja;
+	}
+	int m = hojas;
+	while(m > 1){
+	    int padres = (m + ORDEN) / (ORDEN + 1);
+	    for(int p = 0, k = 0; p < padres; p++){
+		Interno interno = new Interno();
+		int hijos = m / padres + (p < m % padres ? 1 : 0);
+		for(int j = 0; j < hijos; j++){
+		    interno.hijos[j] = nivel[k + j];
+		    if(j > 0)
+			interno.elementos[j - 1] = minimos[k + j];
+		}
+		interno.n = hijos - 1;
+		minimos[p] = minimos[k];
+		nivel[p] = interno;
+		k += hijos;
+	    }
+	    m = padres;
+	}
+	raiz = nivel[0];
+	elementos = n;
+    }
+
+    /**
+     * Nos dice si un elemento está contenido en el árbol.
+     * @param elemento el elemento que queremos verificar si está contenido en
+     *                 el árbol.
+     * @return <code>true</code> si el elemento está contenido en el árbol,
+     *         <code>false</code> en otro caso.
+     */
+    @Override public boolean contiene(T elemento) {
+	if(elemento == null)
+	    return false;
+	Vertice v = raiz;
+	while(v instanceof Interno)
+	    v = ((Interno)v).hijos[posicion(v, elemento, true)];
+	Hoja hoja = (Hoja)v;
+	int i = posicion(hoja, elemento, true);
+	/* Si todos los elementos de la hoja son menores, el elemento sólo
+	   puede ser el primero de la siguiente. */
+	if(i == hoja.n){
+	    hoja = hoja.siguiente;
+	    i = 0;
+	}
+	return hoja != null && comparador.compare(elemento(hoja.elementos[i]), elemento) == 0;
+    }
+
+    /**
+     * Nos dice si el árbol es vacío.
+     * @return <code>true</code> si el árbol es vacío, <code>false</code> en
+     *         otro caso.
+     */
+    @Override public boolean esVacia() {
+	return elementos == 0;
+    }
+
+    /**
+     * Regresa el número de elementos en el árbol.
+     * @return el número de elementos en el árbol.
+     */
+    @Override public int getElementos() {
+	return elementos;
+    }
+
+    /**
+     * Regresa la altura del árbol: el número de vértices de la raíz a
+     * cualquier hoja, menos uno.
+     * @return la altura del árbol.
+     */
+    public int altura() {
+	int altura = 0;
+	for(Vertice v = raiz; v instanceof Interno; v = ((Interno)v).hijos[0])
+	    altura++;
+	return altura;
+    }
+
+    /**
+     * Limpia el árbol de elementos, dejándolo vacío.
+     */
+    @Override public void limpia() {
+	primera = new Hoja();
+	raiz = primera;
+	elementos = 0;
+    }
+
+    /**
+     * Regresa un iterador para iterar el árbol en orden, recorriendo las
+     * hojas ligadas.
+     * @return un iterador para iterar el árbol.
+     */
+    @Override public Iterator<T> iterator() {
+	return new Iterador();
+    }
+}
@@ -1,5 +1,6 @@
 package mx.ciencias;
 
+import java.io.IOException;
 import java.util.NoSuchElementException;
 
 /**
@@ -297,53 +298,153 @@ public abstract class ArbolBinario<T> implements Coleccion<T> {
 	    return true;
         return false;
     }
-    private String dibujaEspacios(int l, int[] arr){
-      String res = "";
-      for(int i = 0; i<l;i++){
-        if(arr[i] == 1) 
-          res += "│  ";
-        else 
-          res += "   ";
-      }
-      return res;
+    /* Clase interna privada para los marcos de la pila al dibujar: un
+       vértice por dibujar, su profundidad, el conector que lo une a su padre
+       y la marca que deja en la sangría de sus descendientes. */
+    private class Marco {
+	private Vertice vertice;
+	private int profundidad;
+	private String conector;
+	private String marca;
+
+	private Marco(Vertice vertice, int profundidad, String conector, String marca) {
+	    this.vertice = vertice;
+	    this.profundidad = profundidad;
+	    this.conector = conector;
+	    this.marca = marca;
+	}
+    }
+
+    /**
+     * Dibuja el árbol en un {@link Appendable}, con el mismo formato que
+     * {@link #toString}. El dibujo se escribe conforme se recorre el árbol
+     * con una pila explícita, así que toma tiempo lineal y no construye el
+     * dibujo completo en memoria.
+     * @param salida dónde dibujar el árbol.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void dibuja(Appendable salida) throws IOException {
+	dibuja(salida, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Dibuja en un {@link Appendable} los primeros niveles y vértices del
+     * árbol, en pre-order y con el mismo formato que {@link #toString}. Un
+     * vértice en la profundidad máxima con hijos se marca con
+     * <code>[…]</code>, y si se alcanza el máximo de vértices se escribe una
+     * línea con <code>…</code> y el dibujo termina. Sirve para revisar
+     * árboles grandes sin recorrerlos completos.
+     * @param salida dónde dibujar el árbol.
+     * @param profundidad la profundidad máxima de los vértices dibujados.
+     * @param maximo el número máximo de vértices dibujados.
+     * @throws IOException si ocurre un error al escribir.
+     * @throws IllegalArgumentException si <code>profundidad</code> o
+     *         <code>maximo</code> son negativos.
+     */
+    public void dibuja(Appendable salida, int profundidad, int maximo) throws IOException {
+	if(profundidad < 0 || maximo < 0)
+	    throw new IllegalArgumentException("La profundidad y el máximo no pueden ser negativos.");
+	if(raiz == null)
+	    return;
+	StringBuilder sangria = new StringBuilder();
+	Pila<Marco> pila = new Pila<Marco>();
+	pila.mete(new Marco(raiz, 0, "", ""));
+	int dibujados = 0;
+	while(!pila.esVacia()){
+	    Marco m = pila.saca();
+	    if(dibujados++ == maximo){
+		salida.append(sangria, 0, Math.max(0, 3 * (m.profundidad - 1))).append("…\n");
+		return;
+	    }
+	    Vertice v = m.vertice;
+	    if(m.profundidad > 0)
+		sangria.setLength(3 * (m.profundidad - 1));
+	    salida.append(sangria).append(m.conector).append(v.toString());
+	    sangria.append(m.marca);
+	    if(m.profundidad == profundidad){
+		salida.append(v.izquierdo != null || v.derecho != null ? " […]\n" : "\n");
+		continue;
+	    }
+	    salida.append('\n');
+	    int p = m.profundidad + 1;
+	    if(v.izquierdo != null && v.derecho != null){
+		pila.mete(new Marco(v.derecho, p, "└─»", "   "));
+		pila.mete(new Marco(v.izquierdo, p, "├─›", "│  "));
+	    } else if(v.izquierdo != null)
+		pila.mete(new Marco(v.izquierdo, p, "└─›", "   "));
+	    else if(v.derecho != null)
+		pila.mete(new Marco(v.derecho, p, "└─»", "   "));
+	}
     }
 
-    private String toString(Vertice v, int l, int[] arr){
-	String res = v.toString() + '\n';
-	arr[l] = 1;
-	if(v.izquierdo != null && v.derecho != null){
-	    res += this.dibujaEspacios(l,arr);
-	    res += "├─›";
-	    res += this.toString(v.izquierdo, l+1, arr);
-	    res += this.dibujaEspacios(l,arr);
-	    res += "└─»";
-	    arr[l] = 0;
-	    res += this.toString( v.derecho, l+1, arr);
-	} else if(v.izquierdo != null){
-	    res += this.dibujaEspacios(l,arr);
-	    res += "└─›";
-	    arr[l] = 0;
-	    res += this.toString( v.izquierdo, l+1, arr);
-	} else if(v.derecho != null){
-	    res += this.dibujaEspacios(l,arr);
-	    res += "└─»";
-	    arr[l] = 0;
-	    res += this.toString( v.derecho, l+1, arr);
+    /**
+     * Dibuja en un {@link Appendable} los primeros niveles y vértices del
+     * árbol en el formato DOT de Graphviz. Cada vértice se etiqueta con su
+     * representación en cadena; las aristas a hijos izquierdos salen por
+     * abajo a la izquierda del padre y las de hijos derechos por abajo a la
+     * derecha. Los vértices con hijos omitidos por la profundidad se dibujan
+     * punteados.
+     * @param salida dónde dibujar el árbol.
+     * @param profundidad la profundidad máxima de los vértices dibujados.
+     * @param maximo el número máximo de vértices dibujados.
+     * @throws IOException si ocurre un error al escribir.
+     * @throws IllegalArgumentException si <code>profundidad</code> o
+     *         <code>maximo</code> son negativos.
+     */
+    public void dibujaDot(Appendable salida, int profundidad, int maximo) throws IOException {
+	if(profundidad < 0 || maximo < 0)
+	    throw new IllegalArgumentException("La profundidad y el máximo no pueden ser negativos.");
+	salida.append("digraph arbol {\n  node [shape=box];\n");
+	Pila<Marco> pila = new Pila<Marco>();
+	if(raiz != null)
+	    pila.mete(new Marco(raiz, 0, null, null));
+	int dibujados = 0;
+	while(!pila.esVacia() && dibujados < maximo){
+	    Marco m = pila.saca();
+	    Vertice v = m.vertice;
+	    String id = "v" + dibujados++;
+	    boolean corta = m.profundidad == profundidad &&
+		(v.izquierdo != null || v.derecho != null);
+	    salida.append("  ").append(id).append(" [label=\"");
+	    escapa(v.toString(), salida);
+	    salida.append(corta ? "\", style=dashed];\n" : "\"];\n");
+	    if(m.conector != null)
+		salida.append("  ").append(m.conector).append(" -> ").append(id).append(";\n");
+	    if(m.profundidad == profundidad)
+		continue;
+	    if(v.derecho != null)
+		pila.mete(new Marco(v.derecho, m.profundidad + 1, id + ":se", null));
+	    if(v.izquierdo != null)
+		pila.mete(new Marco(v.izquierdo, m.profundidad + 1, id + ":sw", null));
 	}
-	return res;
+	salida.append("}\n");
     }
+
+    /* Escribe una cadena escapando las comillas y diagonales invertidas para
+       DOT. */
+    private static void escapa(String cadena, Appendable salida) throws IOException {
+	for(int i = 0; i < cadena.length(); i++){
+	    char c = cadena.charAt(i);
+	    if(c == '"' || c == '\\')
+		salida.append('\\');
+	    salida.append(c);
+	}
+    }
+
     /**
      * Regresa una representación en cadena del árbol.
      * @return una representación en cadena del árbol.
+     * @see #dibuja(Appendable)
      */
     @Override public String toString() {
-	if(raiz ==  null)
-	    return "";
-	int a = altura() + 1;
-	int[] arr = new int[a];
-	for(int i = 0; i < a; i++)
-	    arr[i] = 0;
-	return toString(raiz,0,arr);
+	StringBuilder dibujo = new StringBuilder();
+	try{
+	    dibuja(dibujo);
+	} catch(IOException e){
+	    /* StringBuilder no lanza IOException. */
+	    throw new IllegalStateException(e);
+	}
+	return dibujo.toString();
     }
 
     /**
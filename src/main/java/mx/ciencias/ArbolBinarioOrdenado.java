@@ -1,10 +1,15 @@
 package mx.ciencias;
 
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 
 /**
- * <p>Clase para árboles binarios ordenados. Los árboles son genéricos, pero
- * acotados a la interfaz {@link Comparable}.</p>
+ * <p>Clase para árboles binarios ordenados. Los árboles son genéricos; el
+ * orden de los elementos lo define un {@link Comparator} recibido en el
+ * constructor o, si no se recibe ninguno, el orden natural de los elementos,
+ * que en ese caso deben implementar la interfaz {@link Comparable}.</p>
  *
  * <p>Un árbol instancia de esta clase siempre cumple que:</p>
  * <ul>
@@ -13,8 +18,19 @@ import java.util.Iterator;
  *   <li>Cualquier elemento en el árbol es menor o igual que todos sus
  *       descendientes por la derecha.</li>
  * </ul>
+ *
+ * <p>Opcionalmente (con {@link #usaCache}) el árbol recuerda en una tabla
+ * pequeña de acceso directo los vértices encontrados y agregados
+ * recientemente, indexada por el código de dispersión del elemento. También
+ * opcionalmente (con {@link #usaDedo}) las búsquedas empiezan en el último
+ * vértice encontrado (el <em>dedo</em>) en lugar de la raíz, lo que conviene
+ * cuando los elementos se buscan casi en orden. Las giras no cambian el
+ * elemento de ningún vértice, así que no invalidan la tabla ni el dedo;
+ * eliminar un vértice o intercambiar elementos sí, y los borra. La tabla y el
+ * dedo sólo los usa {@link #busca} de esta clase; las subclases que la
+ * redefinen pueden rechazarlos.</p>
  */
-public class ArbolBinarioOrdenado<T extends Comparable<T>>
+public class ArbolBinarioOrdenado<T>
     extends ArbolBinario<T> {
 
     /* Clase interna privada para iteradores. */
@@ -35,6 +51,21 @@ public class ArbolBinarioOrdenado<T extends Comparable<T>>
             }
 	}
 
+        /* Inicializa al iterador en el primer elemento mayor o igual que
+           desde. Sólo se meten a la pila los vértices del camino de búsqueda
+           que no son menores que desde. */
+        private Iterador(T desde) {
+	    pila = new Pila<Vertice>();
+	    Vertice v = raiz;
+	    while(v != null){
+		if(comparador.compare(v.elemento, desde) >= 0){
+		    pila.mete(v);
+		    v = v.izquierdo;
+		} else
+		    v = v.derecho;
+	    }
+	}
+
         /* Nos dice si hay un elemento siguiente. */
         @Override public boolean hasNext() {
             return !pila.esVacia();
@@ -65,24 +96,83 @@ public class ArbolBinarioOrdenado<T extends Comparable<T>>
      */
     protected Vertice ultimoAgregado;
 
+    /** El comparador que define el orden de los elementos. */
+    protected Comparator<? super T> comparador;
+
+    /* Los vértices encontrados recientemente, por casilla del código de
+       dispersión de su elemento, o null si no se usa la tabla. */
+    private Object[] cache;
+    /* Si las búsquedas empiezan en el dedo. */
+    private boolean conDedo;
+    /* El último vértice encontrado o agregado, o null. */
+    private Vertice dedo;
+
     /**
      * Constructor sin parámetros. Para no perder el constructor sin parámetros
-     * de {@link ArbolBinario}.
+     * de {@link ArbolBinario}. Los elementos se ordenan con su orden natural.
      */
-    public ArbolBinarioOrdenado() { super(); }
+    public ArbolBinarioOrdenado() {
+	this(ArbolBinarioOrdenado.<T>ordenNatural());
+    }
+
+    /**
+     * Construye un árbol binario ordenado vacío cuyos elementos se ordenan con
+     * el comparador recibido.
+     * @param comparador el comparador que define el orden de los elementos.
+     * @throws IllegalArgumentException si <code>comparador</code> es
+     *         <code>null</code>.
+     */
+    public ArbolBinarioOrdenado(Comparator<? super T> comparador) {
+	super();
+	if(comparador == null)
+	    throw new IllegalArgumentException();
+	this.comparador = comparador;
+    }
 
     /**
      * Construye un árbol binario ordenado a partir de una colección. El árbol
      * binario ordenado tiene los mismos elementos que la colección recibida.
+     * Los elementos se ordenan con su orden natural.
      * @param coleccion la colección a partir de la cual creamos el árbol
      *        binario ordenado.
      */
     public ArbolBinarioOrdenado(Coleccion<T> coleccion) {
-        super(coleccion);
+        this(coleccion, ArbolBinarioOrdenado.<T>ordenNatural());
+    }
+
+    /**
+     * Construye un árbol binario ordenado a partir de una colección, ordenando
+     * sus elementos con el comparador recibido.
+     * @param coleccion la colección a partir de la cual creamos el árbol
+     *        binario ordenado.
+     * @param comparador el comparador que define el orden de los elementos.
+     * @throws IllegalArgumentException si <code>comparador</code> es
+     *         <code>null</code>.
+     */
+    public ArbolBinarioOrdenado(Coleccion<T> coleccion,
+				Comparator<? super T> comparador) {
+	this(comparador);
+	for(T t: coleccion)
+	    agrega(t);
+    }
+
+    /* Regresa el comparador del orden natural. Si los elementos no son
+       comparables, las comparaciones lanzan ClassCastException. */
+    @SuppressWarnings("unchecked")
+    private static <T> Comparator<T> ordenNatural() {
+	return (a, b) -> ((Comparable<? super T>)a).compareTo(b);
+    }
+
+    /**
+     * Regresa el comparador que define el orden de los elementos del árbol.
+     * @return el comparador del árbol.
+     */
+    public Comparator<? super T> getComparador() {
+	return comparador;
     }
 
     private void agrega(Vertice nuevo, Vertice actual) {
-	if(nuevo.elemento.compareTo(actual.elemento) <= 0){
+	if(comparador.compare(nuevo.elemento, actual.elemento) <= 0){
 	    if(actual.izquierdo == null){
 		actual.izquierdo = nuevo;
 		nuevo.padre = actual;
@@ -107,6 +197,7 @@ public class ArbolBinarioOrdenado<T extends Comparable<T>>
 	Vertice v = nuevoVertice(elemento);
 	ultimoAgregado = v;
 	elementos++;
+	recuerda(v);
 	if(raiz == null){
 	    raiz = v;
 	    return;
@@ -136,6 +227,175 @@ public class ArbolBinarioOrdenado<T extends Comparable<T>>
 	     eliminaVertice(eliminar);
     }
 
+    /**
+     * Elimina todos los elementos que cumplen una condición. Si se eliminan
+     * pocos elementos se eliminan uno por uno; si se elimina una fracción
+     * grande del árbol, el árbol se reconstruye en tiempo lineal con los
+     * elementos que quedan.
+     * @param condicion la condición que cumplen los elementos a eliminar.
+     * @return el número de elementos eliminados.
+     */
+    @Override public int eliminaSi(Predicate<? super T> condicion) {
+	int n = elementos;
+	Object[] quedan = new Object[n];
+	Object[] eliminados = new Object[n];
+	int q = 0, e = 0;
+	for(T elemento: this)
+	    if(condicion.test(elemento))
+		eliminados[e++] = elemento;
+	    else
+		quedan[q++] = elemento;
+	if(e == 0)
+	    return 0;
+	int log = 32 - Integer.numberOfLeadingZeros(n);
+	if((long)e * log >= n)
+	    reconstruye(quedan, q);
+	else
+	    for(int i = 0; i < e; i++)
+		elimina(elemento(eliminados[i]));
+	return e;
+    }
+
+    /**
+     * Elimina todos los elementos del árbol que estén en la colección
+     * recibida.
+     * @param coleccion la colección con los elementos a eliminar.
+     * @return el número de elementos eliminados.
+     */
+    public int eliminaTodos(Coleccion<T> coleccion) {
+	return eliminaSi(coleccion::contiene);
+    }
+
+    /**
+     * Regresa un nuevo árbol con los elementos que están en este árbol o en el
+     * árbol recibido. Si un elemento está en los dos árboles, el resultado
+     * tiene el de este árbol. Los dos árboles se recorren en orden a la vez,
+     * así que la operación toma tiempo <em>O</em>(<em>n</em> +
+     * <em>m</em>). Ambos árboles deben estar ordenados con el mismo orden.
+     * @param arbol el otro árbol.
+     * @return la unión de los dos árboles.
+     */
+    public ArbolBinarioOrdenado<T> union(ArbolBinarioOrdenado<T> arbol) {
+	return mezcla(arbol, true, true, true);
+    }
+
+    /**
+     * Regresa un nuevo árbol con los elementos de este árbol que también
+     * están en el árbol recibido. La operación toma tiempo <em>O</em>(<em>n</em>
+     * + <em>m</em>). Ambos árboles deben estar ordenados con el mismo orden.
+     * @param arbol el otro árbol.
+     * @return la intersección de los dos árboles.
+     */
+    public ArbolBinarioOrdenado<T> interseccion(ArbolBinarioOrdenado<T> arbol) {
+	return mezcla(arbol, false, true, false);
+    }
+
+    /**
+     * Regresa un nuevo árbol con los elementos de este árbol que no están en
+     * el árbol recibido. La operación toma tiempo <em>O</em>(<em>n</em> +
+     * <em>m</em>). Ambos árboles deben estar ordenados con el mismo orden.
+     * @param arbol el otro árbol.
+     * @return la diferencia de los dos árboles.
+     */
+    public ArbolBinarioOrdenado<T> diferencia(ArbolBinarioOrdenado<T> arbol) {
+	return mezcla(arbol, true, false, false);
+    }
+
+    /* Mezcla los recorridos en orden de los dos árboles y construye un árbol
+       con los elementos que sólo están en este (si soloEste), los que están
+       en ambos (si ambos) y los que sólo están en el otro (si soloOtro). */
+    private ArbolBinarioOrdenado<T> mezcla(ArbolBinarioOrdenado<T> arbol,
+					   boolean soloEste, boolean ambos,
+					   boolean soloOtro) {
+	if(arbol == null)
+	    throw new IllegalArgumentException("El árbol no puede ser null.");
+	Object[] resultado = new Object[elementos + arbol.elementos];
+	int n = 0;
+	Iterator<T> i = iterator(), j = arbol.iterator();
+	T a = i.hasNext() ? i.next() : null;
+	T b = j.hasNext() ? j.next() : null;
+	while(a != null && b != null){
+	    int c = comparador.compare(a, b);
+	    if(c < 0){
+		if(soloEste)
+		    resultado[n++] = a;
+		a = i.hasNext() ? i.next() : null;
+	    } else if(c > 0){
+		if(soloOtro)
+		    resultado[n++] = b;
+		b = j.hasNext() ? j.next() : null;
+	    } else{
+		if(ambos)
+		    resultado[n++] = a;
+		a = i.hasNext() ? i.next() : null;
+		b = j.hasNext() ? j.next() : null;
+	    }
+	}
+	for(; soloEste && a != null; a = i.hasNext() ? i.next() : null)
+	    resultado[n++] = a;
+	for(; soloOtro && b != null; b = j.hasNext() ? j.next() : null)
+	    resultado[n++] = b;
+	ArbolBinarioOrdenado<T> nuevo = nuevoArbol();
+	nuevo.reconstruye(resultado, n);
+	return nuevo;
+    }
+
+    /**
+     * Regresa un árbol vacío de la misma clase que este árbol y con el mismo
+     * comparador, en el que se construyen los resultados de {@link #union},
+     * {@link #interseccion} y {@link #diferencia}.
+     * @return un árbol vacío.
+     */
+    protected ArbolBinarioOrdenado<T> nuevoArbol() {
+	return new ArbolBinarioOrdenado<T>(comparador);
+    }
+
+    /* Convierte un objeto de un arreglo de elementos en elemento. */
+    @SuppressWarnings("unchecked") private T elemento(Object objeto) {
+	return (T)objeto;
+    }
+
+    /**
+     * Reemplaza los elementos del árbol por los primeros <code>n</code>
+     * elementos del arreglo, que deben estar en orden, construyendo un árbol
+     * balanceado en tiempo lineal. Todas las hojas del árbol construido quedan
+     * en los dos últimos niveles.
+     * @param ordenados los elementos en orden.
+     * @param n el número de elementos a usar del arreglo.
+     */
+    protected void reconstruye(Object[] ordenados, int n) {
+	olvidaTodo();
+	int altura = n == 0 ? -1 : 31 - Integer.numberOfLeadingZeros(n);
+	raiz = construye(ordenados, 0, n - 1, 0, altura);
+	elementos = n;
+    }
+
+    private Vertice construye(Object[] ordenados, int inicio, int fin,
+			      int profundidad, int altura) {
+	if(inicio > fin)
+	    return null;
+	int m = (inicio + fin) >>> 1;
+	Vertice v = nuevoVertice(elemento(ordenados[m]));
+	v.izquierdo = construye(ordenados, inicio, m - 1, profundidad + 1, altura);
+	v.derecho = construye(ordenados, m + 1, fin, profundidad + 1, altura);
+	if(v.izquierdo != null)
+	    v.izquierdo.padre = v;
+	if(v.derecho != null)
+	    v.derecho.padre = v;
+	construido(v, profundidad, altura);
+	return v;
+    }
+
+    /**
+     * Método que se invoca con cada vértice creado por {@link #reconstruye},
+     * para que las subclases completen su información. Por omisión no hace
+     * nada.
+     * @param vertice el vértice construido.
+     * @param profundidad la profundidad del vértice.
+     * @param altura la altura del árbol reconstruido.
+     */
+    protected void construido(Vertice vertice, int profundidad, int altura) {}
+
     /**
      * Intercambia el elemento de un vértice con dos hijos distintos de
      * <code>null</code> con el elemento de un descendiente que tenga a lo más
@@ -147,6 +407,8 @@ public class ArbolBinarioOrdenado<T extends Comparable<T>>
      */
     protected Vertice intercambiaEliminable(Vertice vertice) {
         Vertice max = max(vertice.izquierdo);
+	olvida(vertice);
+	olvida(max);
 	T elemento = max.elemento;
 	max.elemento = vertice.elemento;
 	vertice.elemento = elemento;
@@ -160,6 +422,7 @@ public class ArbolBinarioOrdenado<T extends Comparable<T>>
      *                distinto de <code>null</code>.
      */
     protected void eliminaVertice(Vertice vertice) {
+	olvida(vertice);
         if(vertice.izquierdo == null && vertice.derecho == null){
 	    Vertice padre = vertice.padre;
 	    if(padre == null){
@@ -197,9 +460,10 @@ public class ArbolBinarioOrdenado<T extends Comparable<T>>
     private VerticeArbolBinario<T> busca(Vertice v,T elemento) {
 	if(v == null)
 	    return null;
-	if(v.elemento.equals(elemento))
+	int c = comparador.compare(v.elemento, elemento);
+	if(c == 0)
 	    return v;
-	else if(v.elemento.compareTo(elemento) > 0)
+	else if(c > 0)
 	    return busca(v.izquierdo, elemento);
 	else
 	    return busca(v.derecho, elemento);
@@ -213,7 +477,119 @@ public class ArbolBinarioOrdenado<T extends Comparable<T>>
      *         encuentra; <code>null</code> en otro caso.
      */
     @Override public VerticeArbolBinario<T> busca(T elemento) {
-        return busca(raiz,elemento);
+	if(cache == null && !conDedo)
+	    return busca(raiz,elemento);
+	Vertice v;
+	if(cache != null){
+	    v = enCache(casilla(elemento));
+	    if(v != null && comparador.compare(v.elemento, elemento) == 0)
+		return v;
+	}
+	v = dedo == null ? vertice(busca(raiz, elemento)) : buscaDesdeDedo(elemento);
+	if(v != null)
+	    recuerda(v);
+	return v;
+    }
+
+    /* Busca el elemento empezando en el dedo: sube mientras el elemento
+       quede fuera del intervalo del subárbol actual y después baja. El
+       intervalo sólo se acota por abajo al subir desde un hijo derecho, y por
+       arriba al subir desde un hijo izquierdo, así que sólo en esos pasos se
+       compara. */
+    private Vertice buscaDesdeDedo(T elemento) {
+	Vertice u = dedo;
+	int c = comparador.compare(elemento, u.elemento);
+	if(c == 0)
+	    return u;
+	while(u.padre != null){
+	    Vertice padre = u.padre;
+	    if((c < 0) == (padre.derecho == u)){
+		int d = comparador.compare(elemento, padre.elemento);
+		if(d == 0)
+		    return padre;
+		if((d < 0) != (c < 0))
+		    break;
+	    }
+	    u = padre;
+	}
+	return vertice(busca(u, elemento));
+    }
+
+    /* Regresa el vértice en una casilla de la tabla. */
+    @SuppressWarnings("unchecked") private Vertice enCache(int c) {
+	return (Vertice)cache[c];
+    }
+
+    /* Regresa la casilla de la tabla para un elemento. */
+    private int casilla(T elemento) {
+	int h = elemento.hashCode();
+	return (h ^ (h >>> 16)) & (cache.length - 1);
+    }
+
+    /* Guarda el vértice en su casilla de la tabla y lo vuelve el dedo. */
+    private void recuerda(Vertice vertice) {
+	if(cache != null)
+	    cache[casilla(vertice.elemento)] = vertice;
+	if(conDedo)
+	    dedo = vertice;
+    }
+
+    /* Borra el vértice de la tabla y del dedo. Se invoca antes de que el
+       vértice salga del árbol o cambie de elemento. */
+    private void olvida(Vertice vertice) {
+	if(cache != null){
+	    int c = casilla(vertice.elemento);
+	    if(cache[c] == vertice)
+		cache[c] = null;
+	}
+	if(dedo == vertice)
+	    dedo = null;
+    }
+
+    /* Borra toda la tabla y el dedo. */
+    private void olvidaTodo() {
+	if(cache != null)
+	    cache = new Object[cache.length];
+	dedo = null;
+    }
+
+    /**
+     * Activa o desactiva la tabla de vértices encontrados recientemente. Con
+     * la tabla activa, buscar un elemento que se buscó o agregó hace poco no
+     * recorre el árbol. Un elemento sólo se encuentra en la tabla si su código de
+     * dispersión es consistente con el comparador (como en el orden natural
+     * de las cadenas); si no, se busca en el árbol.
+     * @param casillas el número de casillas de la tabla, que se redondea a
+     *        una potencia de 2; 0 desactiva la tabla.
+     * @throws IllegalArgumentException si <code>casillas</code> es negativo.
+     */
+    public void usaCache(int casillas) {
+	if(casillas < 0)
+	    throw new IllegalArgumentException("El número de casillas no puede ser negativo.");
+	cache = casillas == 0 ? null :
+	    new Object[Integer.highestOneBit(Math.min(casillas, 1 << 30) * 2 - 1)];
+    }
+
+    /**
+     * Activa o desactiva la búsqueda desde el dedo. Con el dedo activo, una
+     * búsqueda sube desde el último vértice encontrado o agregado sólo hasta
+     * el primer ancestro cuyo subárbol puede contener al elemento, y baja
+     * desde ahí; si los elementos se buscan casi en orden, cada búsqueda
+     * recorre pocos vértices. Si se buscan en desorden, subir y volver a bajar
+     * cuesta más que bajar desde la raíz.
+     * @param activo si las búsquedas empiezan en el dedo.
+     */
+    public void usaDedo(boolean activo) {
+	conDedo = activo;
+	dedo = null;
+    }
+
+    /**
+     * Limpia el árbol de elementos, dejándolo vacío.
+     */
+    @Override public void limpia() {
+	super.limpia();
+	olvidaTodo();
     }
 
     /**
@@ -342,4 +718,40 @@ public class ArbolBinarioOrdenado<T extends Comparable<T>>
     @Override public Iterator<T> iterator() {
         return new Iterador();
     }
+
+    /**
+     * Regresa una copia inmutable del árbol optimizada para consultas. El
+     * árbol congelado tiene los mismos elementos y el mismo orden que este
+     * árbol, y no cambia si después se modifica este árbol.
+     * @return una copia congelada del árbol.
+     */
+    public ArbolCongelado<T> congela() {
+	return new ArbolCongelado<T>(iterator(), elementos, comparador);
+    }
+
+    /**
+     * Regresa una copia inmutable del árbol optimizada para consultas, que
+     * además guarda un prefijo de cada elemento para compararlo sin consultar
+     * el elemento. El prefijo debe respetar el orden: si el prefijo de un
+     * elemento es menor (sin signo) que el de otro, el elemento debe ser menor.
+     * @param prefijo la función que calcula el prefijo de un elemento, por
+     *        ejemplo {@link ArbolCongelado#PREFIJO_CADENA}.
+     * @return una copia congelada del árbol.
+     */
+    public ArbolCongelado<T> congela(ToLongFunction<? super T> prefijo) {
+	return new ArbolCongelado<T>(iterator(), elementos, comparador, prefijo);
+    }
+
+    /**
+     * Regresa un iterador que recorre en orden los elementos del árbol
+     * mayores o iguales que el elemento recibido. Encontrar el primer elemento
+     * toma tiempo proporcional a la altura del árbol, así que recorrer un
+     * rango de <em>k</em> elementos no requiere recorrer los anteriores.
+     * @param desde el elemento a partir del cual se itera; no tiene que estar
+     *        en el árbol.
+     * @return un iterador para iterar el árbol a partir de <code>desde</code>.
+     */
+    public Iterator<T> iterador(T desde) {
+        return new Iterador(desde);
+    }
 }
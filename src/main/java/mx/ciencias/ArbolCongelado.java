@@ -0,0 +1,254 @@
+package mx.ciencias;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * <p>Clase para árboles ordenados inmutables, optimizados para consultas.</p>
+ *
+ * <p>Un árbol congelado guarda sus elementos en un arreglo con la distribución
+ * de Eytzinger: la raíz está en la posición 1 y los hijos del elemento en la
+ * posición <em>k</em> están en las posiciones 2<em>k</em> y 2<em>k</em>+1. Así
+ * los primeros niveles, que se visitan en todas las búsquedas, quedan juntos
+ * al principio del arreglo, y una búsqueda sólo calcula índices en lugar de
+ * seguir referencias a vértices dispersos en el heap. La búsqueda no se
+ * detiene al encontrar el elemento: siempre baja exactamente
+ * ⌊log<sub>2</sub><em>n</em>⌋+1 niveles, y en cada uno sólo decide si suma 1
+ * al índice, lo que se puede calcular sin saltos.</p>
+ *
+ * <p>Opcionalmente, el árbol guarda en un arreglo paralelo de
+ * <code>long</code> un prefijo de cada elemento que respeta el orden (por
+ * ejemplo, los primeros cuatro caracteres de una cadena, con {@link
+ * #PREFIJO_CADENA}). La búsqueda compara primero los prefijos, que están
+ * contiguos en memoria, y sólo consulta el elemento cuando los prefijos son
+ * iguales; así la mayoría de los niveles no tocan los objetos de los
+ * elementos, que están dispersos en el heap.</p>
+ *
+ * <p>Los árboles congelados se obtienen con {@link
+ * ArbolBinarioOrdenado#congela}; no se les pueden agregar ni eliminar
+ * elementos.</p>
+ */
+public class ArbolCongelado<T> implements Coleccion<T> {
+
+    /* Clase interna privada para iteradores. */
+    private class Iterador implements Iterator<T> {
+
+        /* La posición del siguiente elemento, o 0 si no hay. */
+        private int k;
+
+        /* Inicializa al iterador en la posición recibida. */
+        private Iterador(int k) {
+            this.k = k;
+        }
+
+        /* Nos dice si hay un elemento siguiente. */
+        @Override public boolean hasNext() {
+            return k != 0;
+        }
+
+        /* Regresa el siguiente elemento en orden. */
+        @Override public T next() {
+	    if(k == 0)
+		throw new NoSuchElementException();
+	    T elemento = elemento(k);
+	    k = sucesor(k);
+	    return elemento;
+        }
+    }
+
+    /**
+     * Prefijo de cadenas: sus primeros cuatro caracteres, rellenando con
+     * ceros. Si el prefijo de una cadena es menor (sin signo) que el de otra,
+     * la cadena es menor en el orden natural de {@link String}.
+     */
+    public static final ToLongFunction<String> PREFIJO_CADENA = s -> {
+	long prefijo = 0;
+	for(int i = 0; i < 4; i++)
+	    prefijo = (prefijo << 16) | (i < s.length() ? s.charAt(i) : 0);
+	return prefijo;
+    };
+
+    /* Los elementos en distribución de Eytzinger; la posición 0 no se usa. */
+    private Object[] elementos;
+    /* Los prefijos de los elementos en la misma distribución, o null. */
+    private long[] prefijos;
+    /* La función que calcula los prefijos, o null. */
+    private ToLongFunction<? super T> prefijo;
+    /* El número de elementos. */
+    private int n;
+    /* El comparador que define el orden de los elementos. */
+    private Comparator<? super T> comparador;
+
+    /**
+     * Construye un árbol congelado con los elementos recibidos.
+     * @param ordenados un iterador que regresa los elementos en orden.
+     * @param n el número de elementos.
+     * @param comparador el comparador que define el orden de los elementos.
+     */
+    ArbolCongelado(Iterator<T> ordenados, int n, Comparator<? super T> comparador) {
+	this(ordenados, n, comparador, null);
+    }
+
+    /**
+     * Construye un árbol congelado con los elementos recibidos y sus
+     * prefijos.
+     * @param ordenados un iterador que regresa los elementos en orden.
+     * @param n el número de elementos.
+     * @param comparador el comparador que define el orden de los elementos.
+     * @param prefijo la función que calcula el prefijo de un elemento; si el
+     *        prefijo de un elemento es menor (sin signo) que el de otro, el
+     *        elemento debe ser menor para el comparador. Puede ser
+     *        <code>null</code>.
+     */
+    ArbolCongelado(Iterator<T> ordenados, int n, Comparator<? super T> comparador,
+		   ToLongFunction<? super T> prefijo) {
+	this.n = n;
+	this.comparador = comparador;
+	this.prefijo = prefijo;
+	elementos = new Object[n + 1];
+	llena(1, ordenados);
+	if(prefijo != null){
+	    prefijos = new long[n + 1];
+	    for(int k = 1; k <= n; k++)
+		prefijos[k] = prefijo.applyAsLong(elemento(k));
+	}
+    }
+
+    /* Llena el subárbol con raíz en k recorriéndolo in-order. */
+    private void llena(int k, Iterator<T> ordenados) {
+	if(k > n)
+	    return;
+	llena(2 * k, ordenados);
+	elementos[k] = ordenados.next();
+	llena(2 * k + 1, ordenados);
+    }
+
+    /* Regresa el elemento en la posición k. */
+    @SuppressWarnings("unchecked") private T elemento(int k) {
+	return (T)elementos[k];
+    }
+
+    /* Regresa la posición del primer elemento mayor o igual que el recibido,
+       o 0 si no hay. Al bajar, cada paso a la derecha agrega un bit 1 a k;
+       al final se quitan los bits 1 finales y uno más para regresar al último
+       vértice donde se bajó a la izquierda. */
+    private int cotaInferior(T elemento) {
+	int k = 1;
+	if(prefijos == null){
+	    while(k <= n)
+		k = 2 * k + (comparador.compare(elemento(k), elemento) < 0 ? 1 : 0);
+	} else{
+	    long p = prefijo.applyAsLong(elemento);
+	    while(k <= n){
+		int c = Long.compareUnsigned(prefijos[k], p);
+		if(c == 0)
+		    c = comparador.compare(elemento(k), elemento);
+		k = 2 * k + (c < 0 ? 1 : 0);
+	    }
+	}
+	return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    /* Regresa la posición del sucesor in-order del elemento en k, o 0 si no
+       hay. */
+    private int sucesor(int k) {
+	if(2 * k + 1 <= n){
+	    k = 2 * k + 1;
+	    while(2 * k <= n)
+		k = 2 * k;
+	    return k;
+	}
+	return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    /* Regresa la posición del primer elemento en orden, o 0 si no hay. */
+    private int primero() {
+	if(n == 0)
+	    return 0;
+	int k = 1;
+	while(2 * k <= n)
+	    k = 2 * k;
+	return k;
+    }
+
+    /**
+     * Lanza la excepción {@link UnsupportedOperationException}: los árboles
+     * congelados no se pueden modificar.
+     * @param elemento el elemento que se quiere agregar.
+     * @throws UnsupportedOperationException siempre.
+     */
+    @Override public void agrega(T elemento) {
+	throw new UnsupportedOperationException("Los árboles congelados no " +
+						"se pueden modificar.");
+    }
+
+    /**
+     * Lanza la excepción {@link UnsupportedOperationException}: los árboles
+     * congelados no se pueden modificar.
+     * @param elemento el elemento que se quiere eliminar.
+     * @throws UnsupportedOperationException siempre.
+     */
+    @Override public void elimina(T elemento) {
+	throw new UnsupportedOperationException("Los árboles congelados no " +
+						"se pueden modificar.");
+    }
+
+    /**
+     * Nos dice si un elemento está en el árbol.
+     * @param elemento el elemento que queremos verificar si está en el árbol.
+     * @return <code>true</code> si el elemento está en el árbol,
+     *         <code>false</code> en otro caso.
+     */
+    @Override public boolean contiene(T elemento) {
+	int k = cotaInferior(elemento);
+	return k != 0 && comparador.compare(elemento(k), elemento) == 0;
+    }
+
+    /**
+     * Nos dice si el árbol es vacío.
+     * @return <code>true</code> si el árbol es vacío, <code>false</code> en
+     *         otro caso.
+     */
+    @Override public boolean esVacia() {
+	return n == 0;
+    }
+
+    /**
+     * Regresa el número de elementos en el árbol.
+     * @return el número de elementos en el árbol.
+     */
+    @Override public int getElementos() {
+	return n;
+    }
+
+    /**
+     * Lanza la excepción {@link UnsupportedOperationException}: los árboles
+     * congelados no se pueden modificar.
+     * @throws UnsupportedOperationException siempre.
+     */
+    @Override public void limpia() {
+	throw new UnsupportedOperationException("Los árboles congelados no " +
+						"se pueden modificar.");
+    }
+
+    /**
+     * Regresa un iterador para iterar el árbol. El árbol se itera en orden.
+     * @return un iterador para iterar el árbol.
+     */
+    @Override public Iterator<T> iterator() {
+	return new Iterador(primero());
+    }
+
+    /**
+     * Regresa un iterador que recorre en orden los elementos del árbol
+     * mayores o iguales que el elemento recibido.
+     * @param desde el elemento a partir del cual se itera; no tiene que estar
+     *        en el árbol.
+     * @return un iterador para iterar el árbol a partir de <code>desde</code>.
+     */
+    public Iterator<T> iterador(T desde) {
+	return new Iterador(cotaInferior(desde));
+    }
+}
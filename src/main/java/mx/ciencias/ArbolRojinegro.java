@@ -1,5 +1,9 @@
 package mx.ciencias;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+
 /**
  * Clase para árboles rojinegros. Un árbol rojinegro cumple las siguientes
  * propiedades:
@@ -16,7 +20,7 @@ package mx.ciencias;
  * Los árboles rojinegros se autobalancean.
  */
 
-public class ArbolRojinegro<T extends Comparable<T>>
+public class ArbolRojinegro<T>
     extends ArbolBinarioOrdenado<T> {
 
     /**
@@ -75,6 +79,15 @@ public class ArbolRojinegro<T extends Comparable<T>>
      */
     public ArbolRojinegro() { super(); }
 
+    /**
+     * Construye un árbol rojinegro vacío cuyos elementos se ordenan con el
+     * comparador recibido.
+     * @param comparador el comparador que define el orden de los elementos.
+     */
+    public ArbolRojinegro(Comparator<? super T> comparador) {
+	super(comparador);
+    }
+
     /**
      * Construye un árbol rojinegro a partir de una colección. El árbol
      * rojinegro tiene los mismos elementos que la colección recibida.
@@ -85,6 +98,18 @@ public class ArbolRojinegro<T extends Comparable<T>>
         super(coleccion);
     }
 
+    /**
+     * Construye un árbol rojinegro a partir de una colección, ordenando sus
+     * elementos con el comparador recibido.
+     * @param coleccion la colección a partir de la cual creamos el árbol
+     *        rojinegro.
+     * @param comparador el comparador que define el orden de los elementos.
+     */
+    public ArbolRojinegro(Coleccion<T> coleccion,
+			  Comparator<? super T> comparador) {
+	super(coleccion, comparador);
+    }
+
     /**
      * Construye un nuevo vértice, usando una instancia de {@link
      * VerticeRojinegro}.
@@ -95,6 +120,47 @@ public class ArbolRojinegro<T extends Comparable<T>>
         return new VerticeRojinegro(elemento);
     }
 
+    /**
+     * Regresa un nuevo árbol rojinegro con los elementos que están en este
+     * árbol o en el árbol recibido.
+     * @param arbol el otro árbol.
+     * @return la unión de los dos árboles.
+     * @see ArbolBinarioOrdenado#union
+     */
+    @Override public ArbolRojinegro<T> union(ArbolBinarioOrdenado<T> arbol) {
+	return (ArbolRojinegro<T>)super.union(arbol);
+    }
+
+    /**
+     * Regresa un nuevo árbol rojinegro con los elementos de este árbol que
+     * también están en el árbol recibido.
+     * @param arbol el otro árbol.
+     * @return la intersección de los dos árboles.
+     * @see ArbolBinarioOrdenado#interseccion
+     */
+    @Override public ArbolRojinegro<T> interseccion(ArbolBinarioOrdenado<T> arbol) {
+	return (ArbolRojinegro<T>)super.interseccion(arbol);
+    }
+
+    /**
+     * Regresa un nuevo árbol rojinegro con los elementos de este árbol que no
+     * están en el árbol recibido.
+     * @param arbol el otro árbol.
+     * @return la diferencia de los dos árboles.
+     * @see ArbolBinarioOrdenado#diferencia
+     */
+    @Override public ArbolRojinegro<T> diferencia(ArbolBinarioOrdenado<T> arbol) {
+	return (ArbolRojinegro<T>)super.diferencia(arbol);
+    }
+
+    /**
+     * Regresa un árbol rojinegro vacío con el mismo comparador.
+     * @return un árbol rojinegro vacío.
+     */
+    @Override protected ArbolBinarioOrdenado<T> nuevoArbol() {
+	return new ArbolRojinegro<T>(comparador);
+    }
+
     /**
      * Regresa el color del vértice rojinegro.
      * @param vertice el vértice del que queremos el color.
@@ -195,143 +261,197 @@ public class ArbolRojinegro<T extends Comparable<T>>
 	    
     }
 
-    private VerticeRojinegro obtenHijo(VerticeRojinegro v){
-	if(v.izquierdo!=null)
-	    return (VerticeRojinegro) v.izquierdo;
-	if(v.derecho!= null)
-	    return (VerticeRojinegro) v.derecho;
-	return null;
-    }
-    private boolean tieneHermano(VerticeRojinegro v){
-	if(esIzquierdo(v))
-	    return v.padre.derecho!=null;
-	else if(esDerecho(v))
-	    return v.padre.izquierdo!=null;
+    /**
+     * Agrega todos los elementos de una colección al árbol. Los elementos se
+     * ordenan primero y se agregan en orden; cada uno se busca a partir del
+     * anterior, subiendo sólo hasta el primer ancestro bajo el que cabe en
+     * lugar de bajar desde la raíz. Si el árbol es mucho más chico que la
+     * colección, en lugar de eso los elementos del árbol se mezclan en orden
+     * con los de la colección y el árbol se reconstruye en tiempo lineal.
+     * @param coleccion la colección con los elementos a agregar.
+     * @throws IllegalArgumentException si la colección tiene a
+     *         <code>null</code>.
+     */
+    public void agregaTodos(Coleccion<T> coleccion) {
+	Object[] lote = new Object[coleccion.getElementos()];
+	int m = 0;
+	for(T elemento: coleccion){
+	    if(elemento == null)
+		throw new IllegalArgumentException();
+	    lote[m++] = elemento;
+	}
+	if(m == 0)
+	    return;
+	ordena(lote, m);
+	/* Reconstruir crea de nuevo todos los vértices del árbol, así que sólo
+	   conviene si el árbol es chico comparado con el lote. */
+	if((long)elementos * 16 <= m)
+	    mezcla(lote, m);
 	else
-	    return false;
+	    agregaOrdenados(lote, m);
+    }
+
+    /* Ordena los primeros m objetos del arreglo con el comparador. */
+    @SuppressWarnings("unchecked") private void ordena(Object[] lote, int m) {
+	Arrays.sort(lote, 0, m, (a, b) -> comparador.compare((T)a, (T)b));
+    }
+
+    /* Mezcla en orden los elementos del árbol con los del lote y reconstruye
+       el árbol con el resultado. */
+    @SuppressWarnings("unchecked") private void mezcla(Object[] lote, int m) {
+	Object[] mezcla = new Object[elementos + m];
+	Iterator<T> iterador = iterator();
+	T actual = iterador.hasNext() ? iterador.next() : null;
+	int i = 0, k = 0;
+	while(actual != null || i < m){
+	    if(actual == null || (i < m && comparador.compare((T)lote[i], actual) <= 0))
+		mezcla[k++] = lote[i++];
+	    else{
+		mezcla[k++] = actual;
+		actual = iterador.hasNext() ? iterador.next() : null;
+	    }
+	}
+	reconstruye(mezcla, k);
+    }
+
+    /* Agrega los primeros m elementos del lote, que están en orden. Cada
+       elemento es mayor o igual que el anterior, así que basta subir desde
+       el vértice anterior mientras sea hijo derecho, o hijo izquierdo de un
+       padre menor que el elemento: el primer vértice donde se detiene es
+       raíz de un subárbol al que la búsqueda desde la raíz también
+       llegaría. */
+    @SuppressWarnings("unchecked") private void agregaOrdenados(Object[] lote, int m) {
+	Vertice anterior = null;
+	for(int i = 0; i < m; i++){
+	    T elemento = (T)lote[i];
+	    VerticeRojinegro v = (VerticeRojinegro)nuevoVertice(elemento);
+	    v.color = Color.ROJO;
+	    elementos++;
+	    if(raiz == null){
+		raiz = v;
+		agregar(v);
+		anterior = v;
+		continue;
+	    }
+	    Vertice u = anterior == null ? raiz : anterior;
+	    while(u.padre != null &&
+		  (u.padre.derecho == u || comparador.compare(elemento, u.padre.elemento) > 0))
+		u = u.padre;
+	    while(true){
+		if(comparador.compare(elemento, u.elemento) <= 0){
+		    if(u.izquierdo == null){
+			u.izquierdo = v;
+			break;
+		    }
+		    u = u.izquierdo;
+		} else{
+		    if(u.derecho == null){
+			u.derecho = v;
+			break;
+		    }
+		    u = u.derecho;
+		}
+	    }
+	    v.padre = u;
+	    agregar(v);
+	    anterior = v;
+	}
+	ultimoAgregado = anterior;
     }
+
     /**
      * Elimina un elemento del árbol. El método elimina el vértice que contiene
      * el elemento, y recolorea y gira el árbol como sea necesario para
-     * rebalancearlo.
+     * rebalancearlo. El elemento se busca una sola vez y no se crean vértices
+     * temporales: si el vértice eliminado no tiene hijos, el rebalanceo parte
+     * del hueco que deja, identificado por su padre.
      * @param elemento el elemento a eliminar del árbol.
      */
     @Override public void elimina(T elemento) {
-	if(busca(elemento)==null)
-	    return;
 	VerticeRojinegro v=(VerticeRojinegro)busca(elemento);
-	VerticeRojinegro hijo=obtenHijo(v);
-	VerticeRojinegro fantasma=null;
+	if(v==null)
+	    return;
 	elementos--;
-	if(hijo==null){
-	    fantasma=(VerticeRojinegro)nuevoVertice(null);
-	    fantasma.color=Color.NEGRO;
-	    v.izquierdo=fantasma;
-	    fantasma.padre=v;
-	    hijo=fantasma;
-	}
-	else if(tieneHermano(hijo)){
+	if(v.izquierdo!=null && v.derecho!=null)
 	    v=(VerticeRojinegro)intercambiaEliminable(v);
-	    hijo=obtenHijo(v);
-	    if(hijo==null){
-		fantasma=(VerticeRojinegro)nuevoVertice(null);
-		fantasma.color=Color.NEGRO;
-		v.izquierdo=fantasma;
-		fantasma.padre=v;
-		hijo=fantasma;
-	    }
-	}
+	VerticeRojinegro hijo=(VerticeRojinegro)(v.izquierdo!=null ? v.izquierdo : v.derecho);
+	VerticeRojinegro padre=obtenPadre(v);
 	eliminaVertice(v);
-	if(hijo.color==Color.ROJO)
-	    hijo.color=Color.NEGRO;
-	else if(v.color==Color.ROJO){
-	    if(fantasma!=null){
-		if(esIzquierdo(fantasma))
-		   fantasma.padre.izquierdo=null;
-		else
-		    fantasma.padre.derecho=null;
-	    }
+	if(v.color==Color.ROJO)
 	    return;
-	}
+	if(esRojo(hijo))
+	    hijo.color=Color.NEGRO;
 	else
-	    balanceoElimina(hijo);
-	if(fantasma!=null){
-	    if(fantasma.padre==null){
-		fantasma=null;
-		hijo=null;
-		raiz=null;
-	    }
-	    else
-	        if(esIzquierdo(fantasma))
-		   fantasma.padre.izquierdo=null;
-		else
-		    fantasma.padre.derecho=null;
-	}
+	    balanceoElimina(hijo, padre);
     }
-    private VerticeRojinegro obtenHermano(VerticeRojinegro v){
-	if(esIzquierdo(v))
-	    return (VerticeRojinegro) v.padre.derecho;
-	else if(esDerecho(v))
-	    return (VerticeRojinegro) v.padre.izquierdo;
-	else
-	    return null;
+
+    private VerticeRojinegro obtenHermano(VerticeRojinegro padre, boolean izquierdo){
+	return (VerticeRojinegro)(izquierdo ? padre.derecho : padre.izquierdo);
     }
-    private void balanceoElimina(VerticeRojinegro vertice){
-	if(!vertice.hayPadre())
+
+    /* Rebalancea después de eliminar un vértice negro. El vértice (que puede
+       ser null si el eliminado no tenía hijos) tiene un negro de menos en
+       todos sus caminos; padre es su padre. */
+    private void balanceoElimina(VerticeRojinegro vertice, VerticeRojinegro padre){
+	if(padre==null)
 	    return;
-	else{
-	    VerticeRojinegro padre=obtenPadre(vertice);
-	    VerticeRojinegro hermano=obtenHermano(vertice);
-	    if(getColor(hermano)==Color.ROJO){
-		padre.color=Color.ROJO;
-		hermano.color=Color.NEGRO;
-		if(esIzquierdo(vertice))
-		    super.giraIzquierda(padre);
-		else if(esDerecho(vertice))
-		    super.giraDerecha(padre);
-	    }
-	    hermano=obtenHermano(vertice);
-	    VerticeRojinegro hi=(VerticeRojinegro) hermano.izquierdo;
-	    VerticeRojinegro hd=(VerticeRojinegro) hermano.derecho;
-	    if(hermano.color==Color.NEGRO && getColor(hi)==Color.NEGRO && getColor(hd)==Color.NEGRO && padre.color==Color.NEGRO){
-		hermano.color=Color.ROJO;
-		balanceoElimina(padre);
-	    }
-	    else if(hermano.color==Color.NEGRO && getColor(hi)==Color.NEGRO && getColor(hd)==Color.NEGRO && padre.color==Color.ROJO){
-		hermano.color=Color.ROJO;
-		padre.color=Color.NEGRO;
-	    }
-	    else{
-		if((esIzquierdo(vertice)&&esRojo(hi)&&!esRojo(hd))||(esDerecho(vertice)&&!esRojo(hi)&&esRojo(hd))){
-		    hermano.color=Color.ROJO;
-		    if(esRojo(hi))
-			hi.color=Color.NEGRO;
-		    if(esRojo(hd))
-			hd.color=Color.NEGRO;
-		    if(esIzquierdo(vertice))
-			super.giraDerecha(hermano);
-		    else if(esDerecho(vertice))
-			super.giraIzquierda(hermano);
-		    
-		}
-		hermano=obtenHermano(vertice);
-		hi=(VerticeRojinegro) hermano.izquierdo;
-		hd=(VerticeRojinegro) hermano.derecho;
-		hermano.color=padre.color;
+	boolean izquierdo=padre.izquierdo==vertice;
+	VerticeRojinegro hermano=obtenHermano(padre, izquierdo);
+	if(esRojo(hermano)){
+	    padre.color=Color.ROJO;
+	    hermano.color=Color.NEGRO;
+	    if(izquierdo)
+		super.giraIzquierda(padre);
+	    else
+		super.giraDerecha(padre);
+	    hermano=obtenHermano(padre, izquierdo);
+	}
+	VerticeRojinegro hi=(VerticeRojinegro) hermano.izquierdo;
+	VerticeRojinegro hd=(VerticeRojinegro) hermano.derecho;
+	if(!esRojo(hi) && !esRojo(hd)){
+	    hermano.color=Color.ROJO;
+	    if(padre.color==Color.ROJO)
 		padre.color=Color.NEGRO;
-		if(esIzquierdo(vertice)){
-		    if(hd!=null)
-			hd.color=Color.NEGRO;
-		    super.giraIzquierda(padre);
-		}
-		else if(esDerecho(vertice)){
-		    if(hi!=null)
-			hi.color=Color.NEGRO;
-		    super.giraDerecha(padre);
-		}
-		
-	    }
+	    else
+		balanceoElimina(padre, obtenPadre(padre));
+	    return;
+	}
+	if(izquierdo && !esRojo(hd)){
+	    hi.color=Color.NEGRO;
+	    hermano.color=Color.ROJO;
+	    super.giraDerecha(hermano);
+	    hermano=obtenHermano(padre, izquierdo);
 	}
+	else if(!izquierdo && !esRojo(hi)){
+	    hd.color=Color.NEGRO;
+	    hermano.color=Color.ROJO;
+	    super.giraIzquierda(hermano);
+	    hermano=obtenHermano(padre, izquierdo);
+	}
+	hermano.color=padre.color;
+	padre.color=Color.NEGRO;
+	if(izquierdo){
+	    ((VerticeRojinegro)hermano.derecho).color=Color.NEGRO;
+	    super.giraIzquierda(padre);
+	}
+	else{
+	    ((VerticeRojinegro)hermano.izquierdo).color=Color.NEGRO;
+	    super.giraDerecha(padre);
+	}
+    }
+
+    /**
+     * Colorea un vértice de un árbol reconstruido con {@link
+     * ArbolBinarioOrdenado#reconstruye}. El árbol reconstruido tiene todas sus
+     * hojas en los dos últimos niveles, así que basta pintar de rojo los
+     * vértices del último nivel y de negro todos los demás.
+     * @param vertice el vértice construido.
+     * @param profundidad la profundidad del vértice.
+     * @param altura la altura del árbol reconstruido.
+     */
+    @Override protected void construido(Vertice vertice, int profundidad, int altura) {
+	((VerticeRojinegro)vertice).color =
+	    (profundidad == altura && altura > 0) ? Color.ROJO : Color.NEGRO;
     }
 
     /**
@@ -0,0 +1,235 @@
+package mx.ciencias;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * <p>Clase para árboles rojinegros que pueden usar varios hilos a la
+ * vez.</p>
+ *
+ * <p>El árbol envuelve un {@link ArbolRojinegro} protegido con un {@link
+ * StampedLock}. Agregar, eliminar y limpiar toman el candado de escritura.
+ * Las lecturas ({@link #contiene}, {@link #getElementos} y la iteración)
+ * primero se intentan sin candado, con una lectura optimista que después se
+ * valida; sólo si un escritor modificó el árbol mientras tanto se repiten con
+ * el candado de lectura. Así, cuando casi todo son consultas, los lectores no
+ * se estorban entre sí.</p>
+ *
+ * <p>Una lectura optimista puede ver el árbol a medio girar; por eso el
+ * recorrido optimista limita su profundidad, atrapa cualquier excepción y
+ * descarta su resultado si la validación falla.</p>
+ */
+public class ArbolRojinegroConcurrente<T> implements Coleccion<T> {
+
+    /* Profundidad máxima de un árbol rojinegro consistente con menos de
+       2^31 elementos. */
+    private static final int PROFUNDIDAD_MAXIMA = 64;
+
+    /* El árbol protegido. */
+    private ArbolRojinegro<T> arbol;
+    /* El candado del árbol. */
+    private final StampedLock candado;
+
+    /**
+     * Constructor sin parámetros. Los elementos se ordenan con su orden
+     * natural.
+     */
+    public ArbolRojinegroConcurrente() {
+	arbol = new ArbolRojinegro<T>();
+	candado = new StampedLock();
+    }
+
+    /**
+     * Construye un árbol concurrente vacío cuyos elementos se ordenan con el
+     * comparador recibido.
+     * @param comparador el comparador que define el orden de los elementos.
+     */
+    public ArbolRojinegroConcurrente(Comparator<? super T> comparador) {
+	arbol = new ArbolRojinegro<T>(comparador);
+	candado = new StampedLock();
+    }
+
+    /**
+     * Agrega un elemento al árbol.
+     * @param elemento el elemento a agregar.
+     * @throws IllegalArgumentException si <code>elemento</code> es
+     *         <code>null</code>.
+     */
+    @Override public void agrega(T elemento) {
+	long sello = candado.writeLock();
+	try{
+	    arbol.agrega(elemento);
+	} finally{
+	    candado.unlockWrite(sello);
+	}
+    }
+
+    /**
+     * Elimina un elemento del árbol.
+     * @param elemento el elemento a eliminar.
+     */
+    @Override public void elimina(T elemento) {
+	long sello = candado.writeLock();
+	try{
+	    arbol.elimina(elemento);
+	} finally{
+	    candado.unlockWrite(sello);
+	}
+    }
+
+    /**
+     * Limpia el árbol de elementos, dejándolo vacío.
+     */
+    @Override public void limpia() {
+	long sello = candado.writeLock();
+	try{
+	    arbol.limpia();
+	} finally{
+	    candado.unlockWrite(sello);
+	}
+    }
+
+    /**
+     * Nos dice si un elemento está en el árbol.
+     * @param elemento el elemento que queremos verificar.
+     * @return <code>true</code> si el elemento está en el árbol,
+     *         <code>false</code> en otro caso.
+     */
+    @Override public boolean contiene(T elemento) {
+	long sello = candado.tryOptimisticRead();
+	if(sello != 0){
+	    try{
+		int r = buscaOptimista(elemento);
+		if(r >= 0 && candado.validate(sello))
+		    return r == 1;
+	    } catch(RuntimeException e){
+		// El árbol cambió durante la lectura; se repite con candado.
+	    }
+	}
+	sello = candado.readLock();
+	try{
+	    return arbol.contiene(elemento);
+	} finally{
+	    candado.unlockRead(sello);
+	}
+    }
+
+    /* Busca el elemento sin candado. Regresa 1 si lo encuentra, 0 si no, y -1
+       si el recorrido es más profundo que cualquier árbol consistente. */
+    private int buscaOptimista(T elemento) {
+	if(arbol.esVacia())
+	    return 0;
+	Comparator<? super T> comparador = arbol.getComparador();
+	VerticeArbolBinario<T> v = arbol.raiz();
+	for(int i = 0; i < PROFUNDIDAD_MAXIMA; i++){
+	    int c = comparador.compare(v.get(), elemento);
+	    if(c == 0)
+		return 1;
+	    if(c > 0){
+		if(!v.hayIzquierdo())
+		    return 0;
+		v = v.izquierdo();
+	    } else{
+		if(!v.hayDerecho())
+		    return 0;
+		v = v.derecho();
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * Nos dice si el árbol es vacío.
+     * @return <code>true</code> si el árbol es vacío, <code>false</code> en
+     *         otro caso.
+     */
+    @Override public boolean esVacia() {
+	return getElementos() == 0;
+    }
+
+    /**
+     * Regresa el número de elementos en el árbol.
+     * @return el número de elementos en el árbol.
+     */
+    @Override public int getElementos() {
+	long sello = candado.tryOptimisticRead();
+	int n = arbol.getElementos();
+	if(candado.validate(sello))
+	    return n;
+	sello = candado.readLock();
+	try{
+	    return arbol.getElementos();
+	} finally{
+	    candado.unlockRead(sello);
+	}
+    }
+
+    /**
+     * Regresa un iterador sobre una copia en orden de los elementos del
+     * árbol. La copia se toma con una lectura optimista si es posible; el
+     * iterador no ve los cambios posteriores del árbol.
+     * @return un iterador para iterar el árbol.
+     */
+    @Override public Iterator<T> iterator() {
+	long sello = candado.tryOptimisticRead();
+	if(sello != 0){
+	    try{
+		Object[] copia = copiaOptimista();
+		if(copia != null && candado.validate(sello))
+		    return iterador(copia);
+	    } catch(RuntimeException e){
+		// El árbol cambió durante la lectura; se repite con candado.
+	    }
+	}
+	sello = candado.readLock();
+	try{
+	    Object[] copia = new Object[arbol.getElementos()];
+	    int i = 0;
+	    for(T elemento: arbol)
+		copia[i++] = elemento;
+	    return iterador(copia);
+	} finally{
+	    candado.unlockRead(sello);
+	}
+    }
+
+    /* Copia los elementos en orden sin candado, con una pila de tamaño fijo.
+       Regresa null si el recorrido no corresponde a un árbol consistente. */
+    private Object[] copiaOptimista() {
+	int n = arbol.getElementos();
+	Object[] copia = new Object[n];
+	if(arbol.esVacia())
+	    return copia;
+	Object[] pila = new Object[PROFUNDIDAD_MAXIMA];
+	int tope = 0, i = 0;
+	VerticeArbolBinario<T> v = arbol.raiz();
+	while(true){
+	    while(v != null){
+		if(tope == pila.length)
+		    return null;
+		pila[tope++] = v;
+		v = v.hayIzquierdo() ? v.izquierdo() : null;
+	    }
+	    if(tope == 0)
+		break;
+	    v = vertice(pila[--tope]);
+	    if(i == n)
+		return null;
+	    copia[i++] = v.get();
+	    v = v.hayDerecho() ? v.derecho() : null;
+	}
+	return i == n ? copia : null;
+    }
+
+    /* Regresa un vértice guardado en la pila de copiaOptimista. */
+    @SuppressWarnings("unchecked") private VerticeArbolBinario<T> vertice(Object objeto) {
+	return (VerticeArbolBinario<T>)objeto;
+    }
+
+    /* Regresa un iterador sobre un arreglo de elementos. */
+    @SuppressWarnings("unchecked") private Iterator<T> iterador(Object[] copia) {
+	return (Iterator<T>)Arrays.asList(copia).iterator();
+    }
+}
@@ -0,0 +1,379 @@
+package mx.ciencias;
+
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * <p>Clase para árboles rojinegros persistentes.</p>
+ *
+ * <p>Los vértices de un árbol persistente nunca se modifican: agregar o
+ * eliminar un elemento copia sólo los O(log <em>n</em>) vértices del camino
+ * de la raíz al elemento y regresa una raíz nueva, compartiendo el resto del
+ * árbol con la versión anterior. La versión actual se publica con una sola
+ * escritura volátil, así que cualquier hilo puede tomar una {@link
+ * Instantanea} consistente con una sola lectura y recorrerla sin candados
+ * mientras otro hilo sigue agregando elementos.</p>
+ *
+ * <p>Las modificaciones se serializan entre sí; las lecturas nunca esperan.
+ * Agregar usa el balanceo de Okasaki y eliminar el de Kahrs. Como en {@link
+ * ArbolBinarioOrdenado}, un elemento repetido se agrega a la izquierda de sus
+ * iguales.</p>
+ */
+public class ArbolRojinegroPersistente<T> implements Coleccion<T> {
+
+    /* Clase interna privada para vértices inmutables. */
+    private static final class Nodo<T> {
+
+        /* Si el vértice es rojo. */
+        private final boolean rojo;
+        /* El izquierdo del vértice. */
+        private final Nodo<T> izquierdo;
+        /* El elemento del vértice. */
+        private final T elemento;
+        /* El derecho del vértice. */
+        private final Nodo<T> derecho;
+
+        /* Construye un vértice. */
+        private Nodo(boolean rojo, Nodo<T> izquierdo, T elemento, Nodo<T> derecho) {
+            this.rojo = rojo;
+            this.izquierdo = izquierdo;
+            this.elemento = elemento;
+            this.derecho = derecho;
+        }
+    }
+
+    /**
+     * Clase para instantáneas inmutables de un árbol rojinegro persistente.
+     * Una instantánea no cambia aunque el árbol del que se tomó se siga
+     * modificando.
+     */
+    public static final class Instantanea<T> implements Iterable<T> {
+
+        /* Clase interna privada para iteradores. */
+        private class Iterador implements Iterator<T> {
+
+            /* Pila para recorrer los vértices en DFS in-order. */
+            private Pila<Nodo<T>> pila;
+
+            /* Inicializa al iterador. */
+            private Iterador() {
+                pila = new Pila<Nodo<T>>();
+                bajaIzquierda(raiz);
+            }
+
+            /* Mete a la pila un vértice y todos sus izquierdos. */
+            private void bajaIzquierda(Nodo<T> n) {
+                while(n != null){
+                    pila.mete(n);
+                    n = n.izquierdo;
+                }
+            }
+
+            /* Nos dice si hay un elemento siguiente. */
+            @Override public boolean hasNext() {
+                return !pila.esVacia();
+            }
+
+            /* Regresa el siguiente elemento en orden DFS in-order. */
+            @Override public T next() {
+                Nodo<T> n = pila.saca();
+                bajaIzquierda(n.derecho);
+                return n.elemento;
+            }
+        }
+
+        /* La raíz de la instantánea. */
+        private final Nodo<T> raiz;
+        /* El número de elementos de la instantánea. */
+        private final int elementos;
+        /* El comparador que define el orden de los elementos. */
+        private final Comparator<? super T> comparador;
+
+        /* Construye una instantánea. */
+        private Instantanea(Nodo<T> raiz, int elementos,
+                            Comparator<? super T> comparador) {
+            this.raiz = raiz;
+            this.elementos = elementos;
+            this.comparador = comparador;
+        }
+
+        /**
+         * Nos dice si un elemento está en la instantánea.
+         * @param elemento el elemento que queremos verificar.
+         * @return <code>true</code> si el elemento está en la instantánea,
+         *         <code>false</code> en otro caso.
+         */
+        public boolean contiene(T elemento) {
+            Nodo<T> n = raiz;
+            while(n != null){
+                int c = comparador.compare(elemento, n.elemento);
+                if(c == 0)
+                    return true;
+                n = c < 0 ? n.izquierdo : n.derecho;
+            }
+            return false;
+        }
+
+        /**
+         * Regresa el número de elementos en la instantánea.
+         * @return el número de elementos en la instantánea.
+         */
+        public int getElementos() {
+            return elementos;
+        }
+
+        /**
+         * Nos dice si la instantánea es vacía.
+         * @return <code>true</code> si la instantánea es vacía,
+         *         <code>false</code> en otro caso.
+         */
+        public boolean esVacia() {
+            return raiz == null;
+        }
+
+        /**
+         * Regresa un iterador para iterar la instantánea en orden.
+         * @return un iterador para iterar la instantánea.
+         */
+        @Override public Iterator<T> iterator() {
+            return new Iterador();
+        }
+    }
+
+    /* La versión actual del árbol. */
+    private volatile Instantanea<T> actual;
+    /* El comparador que define el orden de los elementos. */
+    private Comparator<? super T> comparador;
+
+    /**
+     * Constructor sin parámetros. Los elementos se ordenan con su orden
+     * natural.
+     */
+    @SuppressWarnings("unchecked") public ArbolRojinegroPersistente() {
+	this((a, b) -> ((Comparable<? super T>)a).compareTo(b));
+    }
+
+    /**
+     * Construye un árbol rojinegro persistente vacío cuyos elementos se
+     * ordenan con el comparador recibido.
+     * @param comparador el comparador que define el orden de los elementos.
+     * @throws IllegalArgumentException si <code>comparador</code> es
+     *         <code>null</code>.
+     */
+    public ArbolRojinegroPersistente(Comparator<? super T> comparador) {
+	if(comparador == null)
+	    throw new IllegalArgumentException();
+	this.comparador = comparador;
+	actual = new Instantanea<T>(null, 0, comparador);
+    }
+
+    /**
+     * Regresa una instantánea de la versión actual del árbol. Tomarla cuesta
+     * una lectura volátil.
+     * @return una instantánea de la versión actual del árbol.
+     */
+    public Instantanea<T> instantanea() {
+	return actual;
+    }
+
+    /**
+     * Agrega un elemento al árbol, publicando una versión nueva.
+     * @param elemento el elemento a agregar.
+     * @throws IllegalArgumentException si <code>elemento</code> es
+     *         <code>null</code>.
+     */
+    @Override public synchronized void agrega(T elemento) {
+	if(elemento == null)
+	    throw new IllegalArgumentException();
+	Instantanea<T> v = actual;
+	Nodo<T> r = agrega(v.raiz, elemento);
+	actual = new Instantanea<T>(negro(r.izquierdo, r.elemento, r.derecho),
+				    v.elementos + 1, comparador);
+    }
+
+    /* Agrega el elemento en el subárbol, copiando el camino. */
+    private Nodo<T> agrega(Nodo<T> n, T elemento) {
+	if(n == null)
+	    return rojo(null, elemento, null);
+	boolean izquierda = comparador.compare(elemento, n.elemento) <= 0;
+	if(n.rojo)
+	    return izquierda ?
+		rojo(agrega(n.izquierdo, elemento), n.elemento, n.derecho) :
+		rojo(n.izquierdo, n.elemento, agrega(n.derecho, elemento));
+	return izquierda ?
+	    balancea(agrega(n.izquierdo, elemento), n.elemento, n.derecho) :
+	    balancea(n.izquierdo, n.elemento, agrega(n.derecho, elemento));
+    }
+
+    /**
+     * Elimina un elemento del árbol, publicando una versión nueva. Si el
+     * elemento no está en el árbol, no hace nada.
+     * @param elemento el elemento a eliminar.
+     */
+    @Override public synchronized void elimina(T elemento) {
+	Instantanea<T> v = actual;
+	if(!v.contiene(elemento))
+	    return;
+	Nodo<T> r = elimina(v.raiz, elemento);
+	if(r != null)
+	    r = negro(r.izquierdo, r.elemento, r.derecho);
+	actual = new Instantanea<T>(r, v.elementos - 1, comparador);
+    }
+
+    /* Elimina el elemento del subárbol, que debe contenerlo. */
+    private Nodo<T> elimina(Nodo<T> n, T elemento) {
+	int c = comparador.compare(elemento, n.elemento);
+	if(c < 0){
+	    if(esNegro(n.izquierdo))
+		return balanceaIzquierda(elimina(n.izquierdo, elemento), n.elemento,
+					 n.derecho);
+	    return rojo(elimina(n.izquierdo, elemento), n.elemento, n.derecho);
+	}
+	if(c > 0){
+	    if(esNegro(n.derecho))
+		return balanceaDerecha(n.izquierdo, n.elemento,
+				       elimina(n.derecho, elemento));
+	    return rojo(n.izquierdo, n.elemento, elimina(n.derecho, elemento));
+	}
+	return une(n.izquierdo, n.derecho);
+    }
+
+    /* Nos dice si un vértice es rojo. */
+    private static <T> boolean esRojo(Nodo<T> n) {
+	return n != null && n.rojo;
+    }
+
+    /* Nos dice si un vértice es negro y no es vacío. */
+    private static <T> boolean esNegro(Nodo<T> n) {
+	return n != null && !n.rojo;
+    }
+
+    /* Construye un vértice rojo. */
+    private static <T> Nodo<T> rojo(Nodo<T> i, T e, Nodo<T> d) {
+	return new Nodo<T>(true, i, e, d);
+    }
+
+    /* Construye un vértice negro. */
+    private static <T> Nodo<T> negro(Nodo<T> i, T e, Nodo<T> d) {
+	return new Nodo<T>(false, i, e, d);
+    }
+
+    /* Construye un vértice negro con los hijos recibidos, reparando un rojo
+       con hijo rojo en cualquiera de los cuatro acomodos posibles. */
+    private static <T> Nodo<T> balancea(Nodo<T> i, T e, Nodo<T> d) {
+	if(esRojo(i) && esRojo(d))
+	    return rojo(negro(i.izquierdo, i.elemento, i.derecho), e,
+			negro(d.izquierdo, d.elemento, d.derecho));
+	if(esRojo(i) && esRojo(i.izquierdo))
+	    return rojo(negro(i.izquierdo.izquierdo, i.izquierdo.elemento,
+			      i.izquierdo.derecho),
+			i.elemento, negro(i.derecho, e, d));
+	if(esRojo(i) && esRojo(i.derecho))
+	    return rojo(negro(i.izquierdo, i.elemento, i.derecho.izquierdo),
+			i.derecho.elemento, negro(i.derecho.derecho, e, d));
+	if(esRojo(d) && esRojo(d.derecho))
+	    return rojo(negro(i, e, d.izquierdo), d.elemento,
+			negro(d.derecho.izquierdo, d.derecho.elemento,
+			      d.derecho.derecho));
+	if(esRojo(d) && esRojo(d.izquierdo))
+	    return rojo(negro(i, e, d.izquierdo.izquierdo), d.izquierdo.elemento,
+			negro(d.izquierdo.derecho, d.elemento, d.derecho));
+	return negro(i, e, d);
+    }
+
+    /* Pinta de rojo un vértice negro. */
+    private static <T> Nodo<T> enrojece(Nodo<T> n) {
+	return rojo(n.izquierdo, n.elemento, n.derecho);
+    }
+
+    /* Construye un vértice cuyo subárbol izquierdo perdió un vértice negro
+       en su altura negra. */
+    private static <T> Nodo<T> balanceaIzquierda(Nodo<T> i, T e, Nodo<T> d) {
+	if(esRojo(i))
+	    return rojo(negro(i.izquierdo, i.elemento, i.derecho), e, d);
+	if(esNegro(d))
+	    return balancea(i, e, enrojece(d));
+	return rojo(negro(i, e, d.izquierdo.izquierdo), d.izquierdo.elemento,
+		    balancea(d.izquierdo.derecho, d.elemento, enrojece(d.derecho)));
+    }
+
+    /* Construye un vértice cuyo subárbol derecho perdió un vértice negro en
+       su altura negra. */
+    private static <T> Nodo<T> balanceaDerecha(Nodo<T> i, T e, Nodo<T> d) {
+	if(esRojo(d))
+	    return rojo(i, e, negro(d.izquierdo, d.elemento, d.derecho));
+	if(esNegro(i))
+	    return balancea(enrojece(i), e, d);
+	return rojo(balancea(enrojece(i.izquierdo), i.elemento, i.derecho.izquierdo),
+		    i.derecho.elemento, negro(i.derecho.derecho, e, d));
+    }
+
+    /* Une dos subárboles con la misma altura negra, donde todos los
+       elementos del primero son menores o iguales que los del segundo. */
+    private static <T> Nodo<T> une(Nodo<T> a, Nodo<T> b) {
+	if(a == null)
+	    return b;
+	if(b == null)
+	    return a;
+	if(!a.rojo && b.rojo)
+	    return rojo(une(a, b.izquierdo), b.elemento, b.derecho);
+	if(a.rojo && !b.rojo)
+	    return rojo(a.izquierdo, a.elemento, une(a.derecho, b));
+	Nodo<T> s = une(a.derecho, b.izquierdo);
+	if(a.rojo){
+	    if(esRojo(s))
+		return rojo(rojo(a.izquierdo, a.elemento, s.izquierdo), s.elemento,
+			    rojo(s.derecho, b.elemento, b.derecho));
+	    return rojo(a.izquierdo, a.elemento, rojo(s, b.elemento, b.derecho));
+	}
+	if(esRojo(s))
+	    return rojo(negro(a.izquierdo, a.elemento, s.izquierdo), s.elemento,
+			negro(s.derecho, b.elemento, b.derecho));
+	return balanceaIzquierda(a.izquierdo, a.elemento,
+				 negro(s, b.elemento, b.derecho));
+    }
+
+    /**
+     * Nos dice si un elemento está en la versión actual del árbol.
+     * @param elemento el elemento que queremos verificar.
+     * @return <code>true</code> si el elemento está en el árbol,
+     *         <code>false</code> en otro caso.
+     */
+    @Override public boolean contiene(T elemento) {
+	return actual.contiene(elemento);
+    }
+
+    /**
+     * Nos dice si la versión actual del árbol es vacía.
+     * @return <code>true</code> si el árbol es vacío, <code>false</code> en
+     *         otro caso.
+     */
+    @Override public boolean esVacia() {
+	return actual.esVacia();
+    }
+
+    /**
+     * Regresa el número de elementos en la versión actual del árbol.
+     * @return el número de elementos en el árbol.
+     */
+    @Override public int getElementos() {
+	return actual.getElementos();
+    }
+
+    /**
+     * Limpia el árbol de elementos, publicando una versión vacía. Las
+     * instantáneas tomadas antes no cambian.
+     */
+    @Override public synchronized void limpia() {
+	actual = new Instantanea<T>(null, 0, comparador);
+    }
+
+    /**
+     * Regresa un iterador para iterar en orden una instantánea de la versión
+     * actual del árbol.
+     * @return un iterador para iterar el árbol.
+     */
+    @Override public Iterator<T> iterator() {
+	return actual.iterator();
+    }
+}
@@ -0,0 +1,219 @@
+package mx.ciencias;
+
+import java.util.Comparator;
+
+/**
+ * <p>Clase para árboles splay (árboles autoajustables).</p>
+ *
+ * <p>Cada vez que se agrega o se busca un elemento, su vértice sube hasta la
+ * raíz con giras dobles (<em>zig-zig</em> y <em>zig-zag</em>). El árbol no
+ * guarda información de balanceo y puede desbalancearse, pero cualquier
+ * secuencia de <em>m</em> operaciones toma tiempo <em>O</em>(<em>m</em> log
+ * <em>n</em>), y los elementos que se consultan seguido se quedan cerca de la
+ * raíz: si las consultas siguen una distribución sesgada, como las palabras
+ * de un texto, el costo de cada consulta depende de la frecuencia del
+ * elemento y no del tamaño del árbol.</p>
+ *
+ * <p>Como el árbol puede tener caminos muy largos, agregar y buscar son
+ * iterativos. Como el vértice consultado ya queda en la raíz, el árbol no usa
+ * la tabla de vértices recientes ni el dedo de {@link ArbolBinarioOrdenado}:
+ * {@link #usaCache} y {@link #usaDedo} sólo aceptan desactivarlos.</p>
+ */
+public class ArbolSplay<T>
+    extends ArbolBinarioOrdenado<T> {
+
+    /**
+     * Constructor sin parámetros. Para no perder el constructor sin parámetros
+     * de {@link ArbolBinarioOrdenado}.
+     */
+    public ArbolSplay() { super(); }
+
+    /**
+     * Construye un árbol splay vacío cuyos elementos se ordenan con el
+     * comparador recibido.
+     * @param comparador el comparador que define el orden de los elementos.
+     */
+    public ArbolSplay(Comparator<? super T> comparador) {
+	super(comparador);
+    }
+
+    /**
+     * Construye un árbol splay a partir de una colección. El árbol splay
+     * tiene los mismos elementos que la colección recibida.
+     * @param coleccion la colección a partir de la cual creamos el árbol
+     *        splay.
+     */
+    public ArbolSplay(Coleccion<T> coleccion) {
+	super(coleccion);
+    }
+
+    /**
+     * Construye un árbol splay a partir de una colección, ordenando sus
+     * elementos con el comparador recibido.
+     * @param coleccion la colección a partir de la cual creamos el árbol
+     *        splay.
+     * @param comparador el comparador que define el orden de los elementos.
+     */
+    public ArbolSplay(Coleccion<T> coleccion, Comparator<? super T> comparador) {
+	super(coleccion, comparador);
+    }
+
+    /**
+     * Regresa un nuevo árbol splay con los elementos que están en este árbol
+     * o en el árbol recibido.
+     * @param arbol el otro árbol.
+     * @return la unión de los dos árboles.
+     * @see ArbolBinarioOrdenado#union
+     */
+    @Override public ArbolSplay<T> union(ArbolBinarioOrdenado<T> arbol) {
+	return (ArbolSplay<T>)super.union(arbol);
+    }
+
+    /**
+     * Regresa un nuevo árbol splay con los elementos que están en este árbol
+     * y en el árbol recibido.
+     * @param arbol el otro árbol.
+     * @return la intersección de los dos árboles.
+     * @see ArbolBinarioOrdenado#interseccion
+     */
+    @Override public ArbolSplay<T> interseccion(ArbolBinarioOrdenado<T> arbol) {
+	return (ArbolSplay<T>)super.interseccion(arbol);
+    }
+
+    /**
+     * Regresa un nuevo árbol splay con los elementos que están en este árbol
+     * y no en el árbol recibido.
+     * @param arbol el otro árbol.
+     * @return la diferencia de los dos árboles.
+     * @see ArbolBinarioOrdenado#diferencia
+     */
+    @Override public ArbolSplay<T> diferencia(ArbolBinarioOrdenado<T> arbol) {
+	return (ArbolSplay<T>)super.diferencia(arbol);
+    }
+
+    /**
+     * Regresa un árbol splay vacío con el mismo comparador.
+     * @return un árbol splay vacío.
+     */
+    @Override protected ArbolBinarioOrdenado<T> nuevoArbol() {
+	return new ArbolSplay<T>(comparador);
+    }
+
+    /**
+     * Agrega un nuevo elemento al árbol y lo sube a la raíz.
+     * @param elemento el elemento a agregar.
+     * @throws IllegalArgumentException si <code>elemento</code> es
+     *         <code>null</code>.
+     */
+    @Override public void agrega(T elemento) {
+	if(elemento == null)
+	    throw new IllegalArgumentException();
+	Vertice v = nuevoVertice(elemento);
+	ultimoAgregado = v;
+	elementos++;
+	if(raiz == null){
+	    raiz = v;
+	    return;
+	}
+	Vertice actual = raiz;
+	while(true){
+	    if(comparador.compare(elemento, actual.elemento) <= 0){
+		if(actual.izquierdo == null){
+		    actual.izquierdo = v;
+		    break;
+		}
+		actual = actual.izquierdo;
+	    } else{
+		if(actual.derecho == null){
+		    actual.derecho = v;
+		    break;
+		}
+		actual = actual.derecho;
+	    }
+	}
+	v.padre = actual;
+	splay(v);
+    }
+
+    /**
+     * Busca un elemento en el árbol. Si lo encuentra, sube su vértice a la
+     * raíz y lo regresa; si no, sube a la raíz el último vértice visitado y
+     * regresa <code>null</code>.
+     * @param elemento el elemento a buscar.
+     * @return un vértice que contiene al elemento buscado si lo encuentra;
+     *         <code>null</code> en otro caso.
+     */
+    @Override public VerticeArbolBinario<T> busca(T elemento) {
+	Vertice v = raiz, ultimo = null;
+	while(v != null){
+	    int c = comparador.compare(v.elemento, elemento);
+	    if(c == 0){
+		splay(v);
+		return v;
+	    }
+	    ultimo = v;
+	    v = c > 0 ? v.izquierdo : v.derecho;
+	}
+	if(ultimo != null)
+	    splay(ultimo);
+	return null;
+    }
+
+    /**
+     * Lanza la excepción {@link UnsupportedOperationException} si se pide
+     * activar la tabla: los árboles splay no la usan, porque cada búsqueda
+     * sube el vértice encontrado a la raíz.
+     * @param casillas el número de casillas de la tabla; sólo se acepta 0.
+     * @throws UnsupportedOperationException si <code>casillas</code> es
+     *         mayor que 0.
+     * @throws IllegalArgumentException si <code>casillas</code> es negativo.
+     */
+    @Override public void usaCache(int casillas) {
+	if(casillas > 0)
+	    throw new UnsupportedOperationException("Los árboles splay no usan " +
+						    "tabla de vértices recientes.");
+	super.usaCache(casillas);
+    }
+
+    /**
+     * Lanza la excepción {@link UnsupportedOperationException} si se pide
+     * activar el dedo: los árboles splay no lo usan, porque cada búsqueda
+     * empieza en la raíz, donde quedó el último vértice consultado.
+     * @param activo si las búsquedas empiezan en el dedo; sólo se acepta
+     *        <code>false</code>.
+     * @throws UnsupportedOperationException si <code>activo</code> es
+     *         <code>true</code>.
+     */
+    @Override public void usaDedo(boolean activo) {
+	if(activo)
+	    throw new UnsupportedOperationException("Los árboles splay no usan " +
+						    "dedo.");
+	super.usaDedo(activo);
+    }
+
+    /* Sube el vértice a la raíz. */
+    private void splay(Vertice v) {
+	while(v.padre != null){
+	    Vertice padre = v.padre, abuelo = padre.padre;
+	    boolean izquierdo = padre.izquierdo == v;
+	    if(abuelo == null)
+		gira(padre, izquierdo);
+	    else if(izquierdo == (abuelo.izquierdo == padre)){
+		gira(abuelo, izquierdo);
+		gira(padre, izquierdo);
+	    } else{
+		gira(padre, izquierdo);
+		gira(abuelo, !izquierdo);
+	    }
+	}
+    }
+
+    /* Gira a la derecha sobre el vértice si su hijo izquierdo debe subir, y
+       a la izquierda si no. */
+    private void gira(Vertice vertice, boolean derecha) {
+	if(derecha)
+	    giraDerecha(vertice);
+	else
+	    giraIzquierda(vertice);
+    }
+}
@@ -1,5 +1,9 @@
 package mx.ciencias;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
 /**
  * <p>Interface para colecciones, con operaciones para agregar y eliminar
  * elementos, y consultar si un elemento está contenido, así como para obtener
@@ -26,6 +30,23 @@ public interface Coleccion<T> extends Iterable<T> {
      */
     public void elimina(T elemento);
 
+    /**
+     * Elimina todos los elementos que cumplen una condición. Por omisión
+     * primero recorre la colección y después elimina los elementos uno por
+     * uno; las clases pueden dar una versión más eficiente.
+     * @param condicion la condición que cumplen los elementos a eliminar.
+     * @return el número de elementos eliminados.
+     */
+    public default int eliminaSi(Predicate<? super T> condicion) {
+	List<T> eliminados = new ArrayList<T>();
+	for(T elemento: this)
+	    if(condicion.test(elemento))
+		eliminados.add(elemento);
+	for(T elemento: eliminados)
+	    elimina(elemento);
+	return eliminados.size();
+    }
+
     /**
      * Nos dice si un elemento está contenido en la colección.
      * @param elemento el elemento que queremos verificar si está contenido en
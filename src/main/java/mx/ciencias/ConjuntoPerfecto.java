@@ -0,0 +1,143 @@
+package mx.ciencias;
+
+import java.util.Arrays;
+
+/**
+ * <p>Clase para conjuntos fijos de palabras con una función de dispersión
+ * perfecta mínima.</p>
+ *
+ * <p>El conjunto se construye una sola vez con el método de
+ * <em>dispersar, desplazar y comprimir</em>: las palabras se reparten en
+ * cubetas con una primera función de dispersión, y para cada cubeta se busca
+ * un desplazamiento que mande todas sus palabras a casillas libres distintas
+ * de una tabla con exactamente tantas casillas como palabras. Para saber si
+ * una palabra está en el conjunto basta calcular un código de 64 bits, leer
+ * el desplazamiento de su cubeta y comparar con la única palabra de la
+ * casilla que le toca; no hay sondeos ni colisiones.</p>
+ *
+ * <p>Las palabras se pueden consultar directamente desde un arreglo de
+ * caracteres, sin construir una cadena.</p>
+ */
+public class ConjuntoPerfecto {
+
+    /* Número promedio de palabras por cubeta. */
+    private static final int POR_CUBETA = 4;
+
+    /* Las palabras, cada una en la casilla que le asigna la función. */
+    private String[] casillas;
+    /* El desplazamiento de cada cubeta. */
+    private int[] desplazamientos;
+
+    /**
+     * Construye un conjunto con las palabras recibidas. Las repeticiones se
+     * ignoran.
+     * @param palabras las palabras del conjunto.
+     */
+    public ConjuntoPerfecto(String[] palabras) {
+	String[] unicas = Arrays.stream(palabras).distinct().toArray(String[]::new);
+	int n = unicas.length;
+	casillas = new String[n];
+	desplazamientos = new int[Math.max(1, (n + POR_CUBETA - 1) / POR_CUBETA)];
+	if(n == 0)
+	    return;
+	long[] codigos = new long[n];
+	int[][] cubetas = new int[desplazamientos.length][];
+	int[] tamaños = new int[desplazamientos.length];
+	for(int i = 0; i < n; i++){
+	    codigos[i] = Dispersion.dispersa(unicas[i].toCharArray(), unicas[i].length());
+	    tamaños[cubeta(codigos[i])]++;
+	}
+	for(int b = 0; b < cubetas.length; b++)
+	    cubetas[b] = new int[tamaños[b]];
+	Arrays.fill(tamaños, 0);
+	for(int i = 0; i < n; i++){
+	    int b = cubeta(codigos[i]);
+	    cubetas[b][tamaños[b]++] = i;
+	}
+	Integer[] orden = new Integer[cubetas.length];
+	for(int b = 0; b < orden.length; b++)
+	    orden[b] = b;
+	Arrays.sort(orden, (a, b) -> cubetas[b].length - cubetas[a].length);
+	int[] lugares = new int[POR_CUBETA * 8];
+	for(int b: orden){
+	    int[] cubeta = cubetas[b];
+	    if(cubeta.length == 0)
+		break;
+	    if(lugares.length < cubeta.length)
+		lugares = new int[cubeta.length];
+	    for(int d = 0; ; d++){
+		if(acomoda(cubeta, codigos, d, lugares)){
+		    desplazamientos[b] = d;
+		    for(int j = 0; j < cubeta.length; j++)
+			casillas[lugares[j]] = unicas[cubeta[j]];
+		    break;
+		}
+	    }
+	}
+    }
+
+    /* Nos dice si con el desplazamiento d todas las palabras de la cubeta
+       caen en casillas libres y distintas; las deja en lugares. */
+    private boolean acomoda(int[] cubeta, long[] codigos, int d, int[] lugares) {
+	for(int j = 0; j < cubeta.length; j++){
+	    int c = casilla(codigos[cubeta[j]], d);
+	    if(casillas[c] != null)
+		return false;
+	    for(int k = 0; k < j; k++)
+		if(lugares[k] == c)
+		    return false;
+	    lugares[j] = c;
+	}
+	return true;
+    }
+
+    /* Regresa la cubeta de un código. */
+    private int cubeta(long codigo) {
+	return (int)Long.remainderUnsigned(codigo >>> 32, desplazamientos.length);
+    }
+
+    /* Regresa la casilla de un código con un desplazamiento. */
+    private int casilla(long codigo, int d) {
+	return (int)Long.remainderUnsigned(Dispersion.mezcla(codigo + d * 0x9e3779b97f4a7c15L),
+					   casillas.length);
+    }
+
+    /**
+     * Nos dice si la palabra formada por los primeros <code>longitud</code>
+     * caracteres del buffer está en el conjunto.
+     * @param buffer los caracteres de la palabra.
+     * @param longitud el número de caracteres de la palabra.
+     * @return <code>true</code> si la palabra está en el conjunto,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(char[] buffer, int longitud) {
+	if(casillas.length == 0)
+	    return false;
+	long codigo = Dispersion.dispersa(buffer, longitud);
+	String palabra = casillas[casilla(codigo, desplazamientos[cubeta(codigo)])];
+	if(palabra.length() != longitud)
+	    return false;
+	for(int i = 0; i < longitud; i++)
+	    if(palabra.charAt(i) != buffer[i])
+		return false;
+	return true;
+    }
+
+    /**
+     * Nos dice si una palabra está en el conjunto.
+     * @param palabra la palabra.
+     * @return <code>true</code> si la palabra está en el conjunto,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(String palabra) {
+	return contiene(palabra.toCharArray(), palabra.length());
+    }
+
+    /**
+     * Regresa el número de palabras en el conjunto.
+     * @return el número de palabras en el conjunto.
+     */
+    public int getElementos() {
+	return casillas.length;
+    }
+}
@@ -0,0 +1,126 @@
+package mx.ciencias;
+
+/**
+ * <p>Clase para estimar la frecuencia de las palabras de un flujo con memoria
+ * fija (bosquejo Count-Min).</p>
+ *
+ * <p>El bosquejo es una matriz de <em>d</em> renglones por <em>w</em>
+ * columnas de contadores. Cada palabra incrementa un contador por renglón,
+ * elegido con una función de dispersión distinta para cada renglón, y su
+ * frecuencia se estima con el mínimo de sus contadores. La estimación nunca
+ * es menor que la frecuencia real, y con <em>w</em> = ⌈e/ε⌉ y <em>d</em> =
+ * ⌈ln(1/δ)⌉ se pasa por más de ε<em>N</em> (con <em>N</em> el número de
+ * palabras) con probabilidad menor que δ. Al incrementar sólo se suben los
+ * contadores que son iguales al mínimo (actualización conservadora), lo que
+ * mantiene la garantía y reduce el error en la práctica.</p>
+ */
+public class CountMin {
+
+    /* El número de renglones. */
+    private int d;
+    /* El número de columnas. */
+    private int w;
+    /* Los contadores, renglón por renglón. */
+    private int[] contadores;
+    /* El número de palabras agregadas. */
+    private long total;
+    /* Las columnas de la palabra actual en cada renglón. */
+    private int[] columnas;
+
+    /**
+     * Construye un bosquejo con los límites de error recibidos.
+     * @param epsilon el error máximo, como fracción del número de palabras.
+     * @param delta la probabilidad de pasarse del error máximo.
+     * @throws IllegalArgumentException si <code>epsilon</code> o
+     *         <code>delta</code> no están entre 0 y 1, o si el bosquejo no
+     *         cabe en un arreglo.
+     */
+    public CountMin(double epsilon, double delta) {
+	if(!(epsilon > 0 && epsilon < 1 && delta > 0 && delta < 1))
+	    throw new IllegalArgumentException("Los errores deben estar entre 0 y 1.");
+	double columnas = Math.ceil(Math.E / epsilon);
+	d = (int)Math.ceil(Math.log(1 / delta));
+	if(columnas * d > Integer.MAX_VALUE - 8)
+	    throw new IllegalArgumentException("El bosquejo es demasiado grande.");
+	w = (int)columnas;
+	contadores = new int[d * w];
+	this.columnas = new int[d];
+    }
+
+    /* Calcula la columna de un código en cada renglón (doble dispersión). */
+    private void columnas(long codigo) {
+	int h1 = (int)codigo, h2 = (int)(codigo >>> 32) | 1;
+	for(int i = 0; i < d; i++)
+	    columnas[i] = i * w + Integer.remainderUnsigned(h1 + i * h2, w);
+    }
+
+    /**
+     * Cuenta una aparición de la palabra formada por los primeros
+     * <code>longitud</code> caracteres del buffer.
+     * @param buffer los caracteres de la palabra.
+     * @param longitud el número de caracteres de la palabra.
+     * @return la estimación de la frecuencia de la palabra, contando ésta.
+     */
+    public int incrementa(char[] buffer, int longitud) {
+	columnas(Dispersion.dispersa(buffer, longitud));
+	int minimo = Integer.MAX_VALUE;
+	for(int i = 0; i < d; i++)
+	    minimo = Math.min(minimo, contadores[columnas[i]]);
+	if(minimo == Integer.MAX_VALUE)
+	    return minimo;
+	for(int i = 0; i < d; i++)
+	    if(contadores[columnas[i]] == minimo)
+		contadores[columnas[i]]++;
+	total++;
+	return minimo + 1;
+    }
+
+    /**
+     * Regresa la estimación de la frecuencia de la palabra formada por los
+     * primeros <code>longitud</code> caracteres del buffer.
+     * @param buffer los caracteres de la palabra.
+     * @param longitud el número de caracteres de la palabra.
+     * @return la estimación de la frecuencia de la palabra.
+     */
+    public int estima(char[] buffer, int longitud) {
+	columnas(Dispersion.dispersa(buffer, longitud));
+	int minimo = Integer.MAX_VALUE;
+	for(int i = 0; i < d; i++)
+	    minimo = Math.min(minimo, contadores[columnas[i]]);
+	return minimo;
+    }
+
+    /**
+     * Regresa la estimación de la frecuencia de una palabra.
+     * @param palabra la palabra.
+     * @return la estimación de la frecuencia de la palabra.
+     */
+    public int estima(String palabra) {
+	return estima(palabra.toCharArray(), palabra.length());
+    }
+
+    /**
+     * Regresa el número de palabras contadas.
+     * @return el número de palabras contadas.
+     */
+    public long getTotal() {
+	return total;
+    }
+
+    /**
+     * Regresa el error máximo de las estimaciones con la probabilidad del
+     * bosquejo, en número de apariciones: ε<em>N</em>.
+     * @return el error máximo de las estimaciones.
+     */
+    public long getError() {
+	return (long)Math.ceil(Math.E / w * total);
+    }
+
+    /**
+     * Regresa la memoria de los contadores en bytes.
+     * @return la memoria de los contadores en bytes.
+     */
+    public long getMemoria() {
+	return 4L * contadores.length;
+    }
+}
@@ -0,0 +1,36 @@
+package mx.ciencias;
+
+/**
+ * Funciones de dispersión de 64 bits para palabras guardadas en arreglos de
+ * caracteres, compartidas por las estructuras que no construyen cadenas.
+ */
+final class Dispersion {
+
+    private Dispersion() {}
+
+    /**
+     * Calcula el código de 64 bits de una palabra (FNV-1a con mezcla final).
+     * @param buffer los caracteres de la palabra.
+     * @param longitud el número de caracteres de la palabra.
+     * @return el código de la palabra.
+     */
+    static long dispersa(char[] buffer, int longitud) {
+	long h = 0xcbf29ce484222325L;
+	for(int i = 0; i < longitud; i++)
+	    h = (h ^ buffer[i]) * 0x100000001b3L;
+	return mezcla(h);
+    }
+
+    /**
+     * Mezcla los bits de un código (función final de MurmurHash3).
+     * @param h el código.
+     * @return el código mezclado.
+     */
+    static long mezcla(long h) {
+	h ^= h >>> 33;
+	h *= 0xff51afd7ed558ccdL;
+	h ^= h >>> 33;
+	h *= 0xc4ceb9fe1a85ec53L;
+	return h ^ (h >>> 33);
+    }
+}
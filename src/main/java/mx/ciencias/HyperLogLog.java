@@ -0,0 +1,93 @@
+package mx.ciencias;
+
+/**
+ * <p>Clase para estimar el número de elementos distintos de un flujo con
+ * memoria fija (HyperLogLog).</p>
+ *
+ * <p>Cada palabra se dispersa a 64 bits; los primeros <em>p</em> bits eligen
+ * uno de <em>m</em> = 2<sup><em>p</em></sup> registros y el registro guarda
+ * la posición más grande del primer bit 1 que ha visto en el resto del
+ * código. La media armónica de los registros estima el número de palabras
+ * distintas con un error relativo típico de 1.04/√<em>m</em>, sin importar
+ * cuántas palabras lleguen: la memoria es un byte por registro.</p>
+ */
+public class HyperLogLog {
+
+    /* Los bits que eligen el registro. */
+    private int p;
+    /* Los registros. */
+    private byte[] registros;
+
+    /**
+     * Construye un estimador con el error relativo típico recibido.
+     * @param error el error relativo típico deseado, entre 0.001 y 0.26.
+     * @throws IllegalArgumentException si el error está fuera del rango.
+     */
+    public HyperLogLog(double error) {
+	if(!(error >= 0.001 && error <= 0.26))
+	    throw new IllegalArgumentException("El error debe estar entre 0.001 y 0.26.");
+	double m = (1.04 / error) * (1.04 / error);
+	p = Math.max(4, 64 - Long.numberOfLeadingZeros((long)Math.ceil(m) - 1));
+	registros = new byte[1 << p];
+    }
+
+    /**
+     * Agrega la palabra formada por los primeros <code>longitud</code>
+     * caracteres del buffer.
+     * @param buffer los caracteres de la palabra.
+     * @param longitud el número de caracteres de la palabra.
+     */
+    public void agrega(char[] buffer, int longitud) {
+	agrega(Dispersion.dispersa(buffer, longitud));
+    }
+
+    /**
+     * Agrega un elemento dado por su código de 64 bits, que debe estar bien
+     * dispersado.
+     * @param codigo el código del elemento.
+     */
+    public void agrega(long codigo) {
+	int r = (int)(codigo >>> (64 - p));
+	long resto = codigo << p;
+	int rango = resto == 0 ? 64 - p + 1 : Long.numberOfLeadingZeros(resto) + 1;
+	if(rango > registros[r])
+	    registros[r] = (byte)rango;
+    }
+
+    /**
+     * Regresa la estimación del número de elementos distintos agregados.
+     * @return la estimación del número de elementos distintos.
+     */
+    public long estimacion() {
+	int m = registros.length;
+	double suma = 0;
+	int ceros = 0;
+	for(byte r: registros){
+	    suma += Math.scalb(1.0, -r);
+	    if(r == 0)
+		ceros++;
+	}
+	double alfa = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 :
+	    0.7213 / (1 + 1.079 / m);
+	double e = alfa * m * m / suma;
+	if(e <= 2.5 * m && ceros > 0)
+	    e = m * Math.log((double)m / ceros);
+	return Math.round(e);
+    }
+
+    /**
+     * Regresa el error relativo típico de la estimación.
+     * @return el error relativo típico de la estimación.
+     */
+    public double getError() {
+	return 1.04 / Math.sqrt(registros.length);
+    }
+
+    /**
+     * Regresa la memoria de los registros en bytes.
+     * @return la memoria de los registros en bytes.
+     */
+    public int getMemoria() {
+	return registros.length;
+    }
+}
@@ -0,0 +1,246 @@
+package mx.ciencias;
+
+import java.util.Arrays;
+
+/**
+ * <p>Clase para encontrar las palabras más frecuentes de un flujo sin límite
+ * con memoria fija (algoritmo Space-Saving).</p>
+ *
+ * <p>El resumen vigila a lo más <em>k</em> palabras, cada una con un contador
+ * y el error máximo de ese contador. Si llega una palabra vigilada se
+ * incrementa su contador; si llega una palabra nueva y ya hay <em>k</em>, la
+ * palabra nueva reemplaza a la de contador mínimo, hereda ese contador más
+ * uno y ese mínimo como error. Así cada contador se pasa de la frecuencia
+ * real por a lo más su error, el error nunca es mayor que
+ * <em>N</em>/<em>k</em> (con <em>N</em> el número de palabras), y toda palabra
+ * con frecuencia mayor que <em>N</em>/<em>k</em> está vigilada.</p>
+ *
+ * <p>Los contadores forman un montículo mínimo indexado, así que incrementar
+ * o reemplazar toma tiempo <em>O</em>(log <em>k</em>), y las palabras
+ * vigiladas están en una tabla de dispersión abierta que se consulta
+ * directamente desde el buffer del tokenizador; sólo se construye una cadena
+ * cuando una palabra nueva entra al resumen. Las palabras más frecuentes se
+ * pueden pedir en cualquier momento sin alterar el resumen.</p>
+ */
+public class ResumenFrecuentes {
+
+    /* Marca de casilla vacía en la tabla. */
+    private static final int VACIA = -1;
+
+    /* Las palabras vigiladas, por contador. */
+    private String[] palabras;
+    /* Los códigos de dispersión de las palabras, por contador. */
+    private long[] codigos;
+    /* Los contadores. */
+    private long[] cuentas;
+    /* Los errores de los contadores. */
+    private long[] errores;
+    /* El montículo de contadores; la raíz tiene la cuenta mínima. */
+    private int[] monticulo;
+    /* La posición de cada contador en el montículo. */
+    private int[] posiciones;
+    /* La tabla de dispersión: el contador de cada casilla, o VACIA. */
+    private int[] casillas;
+    /* El número de contadores en uso. */
+    private int n;
+    /* El número de palabras contadas. */
+    private long total;
+
+    /**
+     * Construye un resumen que vigila a lo más <code>k</code> palabras.
+     * @param k el número de palabras vigiladas.
+     * @throws IllegalArgumentException si <code>k</code> es menor que 1.
+     */
+    public ResumenFrecuentes(int k) {
+	if(k < 1 || k > (1 << 28))
+	    throw new IllegalArgumentException("Se deben vigilar entre 1 y 2^28 palabras.");
+	palabras = new String[k];
+	codigos = new long[k];
+	cuentas = new long[k];
+	errores = new long[k];
+	monticulo = new int[k];
+	posiciones = new int[k];
+	casillas = new int[Integer.highestOneBit(2 * k - 1) << 1];
+	Arrays.fill(casillas, VACIA);
+    }
+
+    /**
+     * Cuenta una aparición de la palabra formada por los primeros
+     * <code>longitud</code> caracteres del buffer.
+     * @param buffer los caracteres de la palabra.
+     * @param longitud el número de caracteres de la palabra.
+     */
+    public void incrementa(char[] buffer, int longitud) {
+	total++;
+	long codigo = Dispersion.dispersa(buffer, longitud);
+	int c = casilla(buffer, longitud, codigo);
+	if(casillas[c] != VACIA){
+	    int x = casillas[c];
+	    cuentas[x]++;
+	    baja(posiciones[x]);
+	    return;
+	}
+	int x;
+	if(n < palabras.length){
+	    x = n;
+	    monticulo[n] = x;
+	    posiciones[x] = n++;
+	} else{
+	    x = monticulo[0];
+	    quita(x);
+	    c = casilla(buffer, longitud, codigo);
+	    errores[x] = cuentas[x];
+	}
+	palabras[x] = new String(buffer, 0, longitud);
+	codigos[x] = codigo;
+	cuentas[x] = errores[x] + 1;
+	casillas[c] = x;
+	baja(posiciones[x]);
+	sube(posiciones[x]);
+    }
+
+    /* Regresa la casilla donde está la palabra, o la casilla vacía donde
+       iría (sondeo lineal). */
+    private int casilla(char[] buffer, int longitud, long codigo) {
+	int mascara = casillas.length - 1;
+	int c = (int)codigo & mascara;
+	while(casillas[c] != VACIA && !igual(casillas[c], buffer, longitud, codigo))
+	    c = (c + 1) & mascara;
+	return c;
+    }
+
+    /* Nos dice si la palabra del contador x es la del buffer. */
+    private boolean igual(int x, char[] buffer, int longitud, long codigo) {
+	if(codigos[x] != codigo || palabras[x].length() != longitud)
+	    return false;
+	String palabra = palabras[x];
+	for(int i = 0; i < longitud; i++)
+	    if(palabra.charAt(i) != buffer[i])
+		return false;
+	return true;
+    }
+
+    /* Quita la palabra del contador x de la tabla, recorriendo hacia atrás
+       las palabras que siguen en su cúmulo para no dejar huecos. */
+    private void quita(int x) {
+	int mascara = casillas.length - 1;
+	int c = (int)codigos[x] & mascara;
+	while(casillas[c] != x)
+	    c = (c + 1) & mascara;
+	int hueco = c;
+	for(c = (c + 1) & mascara; casillas[c] != VACIA; c = (c + 1) & mascara){
+	    int ideal = (int)codigos[casillas[c]] & mascara;
+	    if(((c - ideal) & mascara) >= ((c - hueco) & mascara)){
+		casillas[hueco] = casillas[c];
+		hueco = c;
+	    }
+	}
+	casillas[hueco] = VACIA;
+    }
+
+    /* Baja el contador en la posición i del montículo mientras tenga un hijo
+       con cuenta menor. */
+    private void baja(int i) {
+	while(true){
+	    int menor = i, izq = 2 * i + 1, der = izq + 1;
+	    if(izq < n && cuentas[monticulo[izq]] < cuentas[monticulo[menor]])
+		menor = izq;
+	    if(der < n && cuentas[monticulo[der]] < cuentas[monticulo[menor]])
+		menor = der;
+	    if(menor == i)
+		return;
+	    intercambia(i, menor);
+	    i = menor;
+	}
+    }
+
+    /* Sube el contador en la posición i del montículo mientras su padre tenga
+       cuenta mayor. */
+    private void sube(int i) {
+	while(i > 0 && cuentas[monticulo[(i - 1) / 2]] > cuentas[monticulo[i]]){
+	    intercambia(i, (i - 1) / 2);
+	    i = (i - 1) / 2;
+	}
+    }
+
+    /* Intercambia dos posiciones del montículo. */
+    private void intercambia(int i, int j) {
+	int t = monticulo[i];
+	monticulo[i] = monticulo[j];
+	monticulo[j] = t;
+	posiciones[monticulo[i]] = i;
+	posiciones[monticulo[j]] = j;
+    }
+
+    /**
+     * Regresa las palabras vigiladas ordenadas de la más frecuente a la menos
+     * frecuente (y alfabéticamente si tienen la misma cuenta). No modifica el
+     * resumen.
+     * @param k el número máximo de palabras a regresar.
+     * @return las <code>k</code> palabras más frecuentes, o todas las
+     *         vigiladas si son menos.
+     */
+    public String[] frecuentes(int k) {
+	Integer[] orden = new Integer[n];
+	for(int i = 0; i < n; i++)
+	    orden[i] = i;
+	Arrays.sort(orden, (a, b) -> cuentas[a] != cuentas[b] ?
+		    Long.compare(cuentas[b], cuentas[a]) : palabras[a].compareTo(palabras[b]));
+	String[] resultado = new String[Math.min(k, n)];
+	for(int i = 0; i < resultado.length; i++)
+	    resultado[i] = palabras[orden[i]];
+	return resultado;
+    }
+
+    /**
+     * Regresa la cuenta de una palabra vigilada, que se pasa de su frecuencia
+     * real por a lo más su {@link #error}.
+     * @param palabra la palabra.
+     * @return la cuenta de la palabra, o 0 si no está vigilada.
+     */
+    public long cuenta(String palabra) {
+	int x = contador(palabra);
+	return x == VACIA ? 0 : cuentas[x];
+    }
+
+    /**
+     * Regresa el error máximo de la cuenta de una palabra vigilada.
+     * @param palabra la palabra.
+     * @return el error máximo de la cuenta, o 0 si no está vigilada.
+     */
+    public long error(String palabra) {
+	int x = contador(palabra);
+	return x == VACIA ? 0 : errores[x];
+    }
+
+    /* Regresa el contador de una palabra, o VACIA si no está vigilada. */
+    private int contador(String palabra) {
+	char[] buffer = palabra.toCharArray();
+	return casillas[casilla(buffer, buffer.length, Dispersion.dispersa(buffer, buffer.length))];
+    }
+
+    /**
+     * Regresa el número de palabras contadas.
+     * @return el número de palabras contadas.
+     */
+    public long getTotal() {
+	return total;
+    }
+
+    /**
+     * Regresa el número máximo de palabras vigiladas. El error de cualquier
+     * conteo es a lo más el número de palabras contadas entre este número.
+     * @return el número máximo de palabras vigiladas.
+     */
+    public int getCapacidad() {
+	return palabras.length;
+    }
+
+    /**
+     * Regresa el número de palabras vigiladas.
+     * @return el número de palabras vigiladas.
+     */
+    public int getElementos() {
+	return n;
+    }
+}
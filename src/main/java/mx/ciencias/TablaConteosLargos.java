@@ -0,0 +1,125 @@
+package mx.ciencias;
+
+import java.util.Arrays;
+
+/**
+ * <p>Clase para tablas de dispersión que cuentan apariciones de llaves de tipo
+ * <code>long</code> no negativas.</p>
+ *
+ * <p>La tabla usa direccionamiento abierto con sondeo lineal sobre dos
+ * arreglos paralelos de primitivos (llaves y conteos), así que incrementar un
+ * conteo no crea ningún objeto.</p>
+ */
+public class TablaConteosLargos {
+
+    /* Marca de casilla vacía; las llaves válidas son no negativas. */
+    private static final long VACIA = -1L;
+    /* Capacidad inicial de la tabla. */
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    /* Las llaves de las casillas. */
+    private long[] llaves;
+    /* Los conteos de las casillas. */
+    private int[] conteos;
+    /* El número de llaves distintas. */
+    private int elementos;
+
+    /**
+     * Constructor sin parámetros.
+     */
+    public TablaConteosLargos() {
+	llaves = new long[CAPACIDAD_INICIAL];
+	Arrays.fill(llaves, VACIA);
+	conteos = new int[CAPACIDAD_INICIAL];
+    }
+
+    /* Mezcla los bits de una llave (función final de MurmurHash3). */
+    private static int dispersa(long llave) {
+	llave ^= llave >>> 33;
+	llave *= 0xff51afd7ed558ccdL;
+	llave ^= llave >>> 33;
+	llave *= 0xc4ceb9fe1a85ec53L;
+	llave ^= llave >>> 33;
+	return (int)llave;
+    }
+
+    /**
+     * Incrementa en uno el conteo de una llave, agregándola si no estaba.
+     * @param llave la llave a contar.
+     * @return el nuevo conteo de la llave.
+     * @throws IllegalArgumentException si la llave es negativa.
+     */
+    public int incrementa(long llave) {
+	if(llave < 0)
+	    throw new IllegalArgumentException("Llave negativa: " + llave);
+	int mascara = llaves.length - 1;
+	int i = dispersa(llave) & mascara;
+	while(llaves[i] != VACIA){
+	    if(llaves[i] == llave)
+		return ++conteos[i];
+	    i = (i + 1) & mascara;
+	}
+	llaves[i] = llave;
+	conteos[i] = 1;
+	if(++elementos * 2 > llaves.length)
+	    crece();
+	return 1;
+    }
+
+    /**
+     * Regresa el conteo de una llave.
+     * @param llave la llave.
+     * @return el conteo de la llave, o 0 si no está en la tabla.
+     */
+    public int conteo(long llave) {
+	int mascara = llaves.length - 1;
+	int i = dispersa(llave) & mascara;
+	while(llaves[i] != VACIA){
+	    if(llaves[i] == llave)
+		return conteos[i];
+	    i = (i + 1) & mascara;
+	}
+	return 0;
+    }
+
+    /**
+     * Regresa un arreglo nuevo con todas las llaves de la tabla, en ningún
+     * orden en particular.
+     * @return un arreglo con las llaves de la tabla.
+     */
+    public long[] llaves() {
+	long[] res = new long[elementos];
+	int j = 0;
+	for(long llave: llaves)
+	    if(llave != VACIA)
+		res[j++] = llave;
+	return res;
+    }
+
+    /**
+     * Regresa el número de llaves distintas en la tabla.
+     * @return el número de llaves distintas en la tabla.
+     */
+    public int getElementos() {
+	return elementos;
+    }
+
+    /* Duplica el número de casillas y vuelve a dispersar las llaves. */
+    private void crece() {
+	long[] viejasLlaves = llaves;
+	int[] viejosConteos = conteos;
+	llaves = new long[viejasLlaves.length * 2];
+	Arrays.fill(llaves, VACIA);
+	conteos = new int[llaves.length];
+	int mascara = llaves.length - 1;
+	for(int j = 0; j < viejasLlaves.length; j++){
+	    if(viejasLlaves[j] == VACIA)
+		continue;
+	    int i = dispersa(viejasLlaves[j]) & mascara;
+	    while(llaves[i] != VACIA)
+		i = (i + 1) & mascara;
+	    llaves[i] = viejasLlaves[j];
+	    conteos[i] = viejosConteos[j];
+	}
+    }
+}
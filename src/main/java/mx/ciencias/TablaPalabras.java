@@ -0,0 +1,282 @@
+package mx.ciencias;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Clase para tablas de dispersión que asignan a cada palabra distinta un
+ * identificador entero denso (0, 1, 2, …) en el orden en que aparecen.</p>
+ *
+ * <p>La tabla usa direccionamiento abierto con sondeo lineal sobre un arreglo
+ * de enteros; las palabras, sus códigos de dispersión y sus conteos se guardan
+ * en arreglos paralelos indexados por identificador, de modo que no se crea
+ * ningún objeto por entrada además de la palabra misma. Las palabras se pueden
+ * buscar y contar directamente desde un arreglo de caracteres, y la cadena
+ * sólo se construye la primera vez que aparece la palabra.</p>
+ *
+ * <p>La tabla se itera por identificador, es decir, en el orden en que se
+ * agregaron las palabras.</p>
+ */
+public class TablaPalabras implements Iterable<String> {
+
+    /* Clase interna privada para iteradores. */
+    private class Iterador implements Iterator<String> {
+
+        /* El siguiente identificador. */
+        private int siguiente;
+
+        /* Nos dice si hay un elemento siguiente. */
+        @Override public boolean hasNext() {
+            return siguiente < elementos;
+        }
+
+        /* Regresa la siguiente palabra por identificador. */
+        @Override public String next() {
+	    if(siguiente >= elementos)
+		throw new NoSuchElementException();
+	    return palabras[siguiente++];
+        }
+    }
+
+    /* Marca de casilla vacía en la tabla de índices. */
+    private static final int VACIA = -1;
+    /* Capacidad inicial de la tabla. */
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    /* Casillas de la tabla; cada una guarda un identificador o VACIA. */
+    private int[] casillas;
+    /* Las palabras, indexadas por identificador. */
+    private String[] palabras;
+    /* Los códigos de dispersión de las palabras, indexados por identificador. */
+    private int[] hashes;
+    /* Los conteos de las palabras, indexados por identificador. */
+    private int[] conteos;
+    /* El número de palabras en la tabla. */
+    private int elementos;
+
+    /**
+     * Constructor sin parámetros.
+     */
+    public TablaPalabras() {
+	casillas = new int[CAPACIDAD_INICIAL];
+	Arrays.fill(casillas, VACIA);
+	palabras = new String[CAPACIDAD_INICIAL / 2];
+	hashes = new int[CAPACIDAD_INICIAL / 2];
+	conteos = new int[CAPACIDAD_INICIAL / 2];
+    }
+
+    /* Mezcla los bits del código de dispersión de una cadena. */
+    private static int dispersa(String palabra) {
+	return mezcla(palabra.hashCode());
+    }
+
+    /* Calcula el mismo código que dispersa(String) sobre un arreglo de
+       caracteres. */
+    private static int dispersa(char[] buffer, int longitud) {
+	int h = 0;
+	for(int i = 0; i < longitud; i++)
+	    h = 31 * h + buffer[i];
+	return mezcla(h);
+    }
+
+    /* Mezcla los bits altos con los bajos. */
+    private static int mezcla(int h) {
+	return h ^ (h >>> 16);
+    }
+
+    /* Nos dice si la palabra tiene los mismos caracteres que el buffer. */
+    private static boolean iguales(String palabra, char[] buffer, int longitud) {
+	if(palabra.length() != longitud)
+	    return false;
+	for(int i = 0; i < longitud; i++)
+	    if(palabra.charAt(i) != buffer[i])
+		return false;
+	return true;
+    }
+
+    /**
+     * Regresa el identificador de una palabra, agregándola a la tabla si no
+     * estaba.
+     * @param palabra la palabra.
+     * @return el identificador de la palabra.
+     * @throws IllegalArgumentException si <code>palabra</code> es
+     *         <code>null</code>.
+     */
+    public int id(String palabra) {
+	if(palabra == null)
+	    throw new IllegalArgumentException();
+	int h = dispersa(palabra);
+	int mascara = casillas.length - 1;
+	int i = h & mascara;
+	while(casillas[i] != VACIA){
+	    int id = casillas[i];
+	    if(hashes[id] == h && palabras[id].equals(palabra))
+		return id;
+	    i = (i + 1) & mascara;
+	}
+	return agrega(palabra, h, i);
+    }
+
+    /**
+     * Regresa el identificador de la palabra formada por los primeros
+     * <code>longitud</code> caracteres del buffer, agregándola a la tabla si
+     * no estaba. La cadena de la palabra sólo se construye si es nueva.
+     * @param buffer los caracteres de la palabra.
+     * @param longitud el número de caracteres de la palabra.
+     * @return el identificador de la palabra.
+     */
+    public int id(char[] buffer, int longitud) {
+	int h = dispersa(buffer, longitud);
+	int mascara = casillas.length - 1;
+	int i = h & mascara;
+	while(casillas[i] != VACIA){
+	    int id = casillas[i];
+	    if(hashes[id] == h && iguales(palabras[id], buffer, longitud))
+		return id;
+	    i = (i + 1) & mascara;
+	}
+	return agrega(new String(buffer, 0, longitud), h, i);
+    }
+
+    /**
+     * Incrementa en uno el conteo de una palabra, agregándola si no estaba.
+     * Sólo se sondea la tabla una vez.
+     * @param palabra la palabra a contar.
+     * @return el identificador de la palabra.
+     * @throws IllegalArgumentException si <code>palabra</code> es
+     *         <code>null</code>.
+     */
+    public int incrementa(String palabra) {
+	int id = id(palabra);
+	conteos[id]++;
+	return id;
+    }
+
+    /**
+     * Incrementa en uno el conteo de la palabra formada por los primeros
+     * <code>longitud</code> caracteres del buffer, agregándola si no estaba.
+     * Sólo se sondea la tabla una vez, y la cadena de la palabra sólo se
+     * construye si es nueva.
+     * @param buffer los caracteres de la palabra.
+     * @param longitud el número de caracteres de la palabra.
+     * @return el identificador de la palabra.
+     */
+    public int incrementa(char[] buffer, int longitud) {
+	int id = id(buffer, longitud);
+	conteos[id]++;
+	return id;
+    }
+
+    /* Agrega una palabra nueva en la casilla vacía i. */
+    private int agrega(String palabra, int h, int i) {
+	int id = elementos++;
+	if(id == palabras.length){
+	    palabras = Arrays.copyOf(palabras, id * 2);
+	    hashes = Arrays.copyOf(hashes, id * 2);
+	    conteos = Arrays.copyOf(conteos, id * 2);
+	}
+	palabras[id] = palabra;
+	hashes[id] = h;
+	casillas[i] = id;
+	if(elementos * 2 > casillas.length)
+	    crece();
+	return id;
+    }
+
+    /**
+     * Regresa el identificador de una palabra sin agregarla.
+     * @param palabra la palabra a buscar.
+     * @return el identificador de la palabra, o -1 si no está en la tabla.
+     */
+    public int busca(String palabra) {
+	int h = dispersa(palabra);
+	int mascara = casillas.length - 1;
+	int i = h & mascara;
+	while(casillas[i] != VACIA){
+	    int id = casillas[i];
+	    if(hashes[id] == h && palabras[id].equals(palabra))
+		return id;
+	    i = (i + 1) & mascara;
+	}
+	return -1;
+    }
+
+    /**
+     * Regresa la palabra con el identificador recibido.
+     * @param id el identificador.
+     * @return la palabra con ese identificador.
+     * @throws ExcepcionIndiceInvalido si el identificador no es válido.
+     */
+    public String palabra(int id) {
+	if(id < 0 || id >= elementos)
+	    throw new ExcepcionIndiceInvalido("Identificador inválido: " + id);
+	return palabras[id];
+    }
+
+    /**
+     * Regresa el número de apariciones contadas de la palabra con el
+     * identificador recibido.
+     * @param id el identificador.
+     * @return el conteo de la palabra con ese identificador.
+     * @throws ExcepcionIndiceInvalido si el identificador no es válido.
+     */
+    public int conteo(int id) {
+	if(id < 0 || id >= elementos)
+	    throw new ExcepcionIndiceInvalido("Identificador inválido: " + id);
+	return conteos[id];
+    }
+
+    /**
+     * Regresa el número de apariciones contadas de una palabra.
+     * @param palabra la palabra.
+     * @return el conteo de la palabra, o 0 si no está en la tabla.
+     */
+    public int conteo(String palabra) {
+	int id = busca(palabra);
+	return id == -1 ? 0 : conteos[id];
+    }
+
+    /**
+     * Regresa un arreglo nuevo con las palabras de la tabla en orden
+     * alfabético.
+     * @return las palabras de la tabla ordenadas.
+     */
+    public String[] ordenadas() {
+	String[] res = Arrays.copyOf(palabras, elementos);
+	Arrays.sort(res);
+	return res;
+    }
+
+    /**
+     * Regresa el número de palabras distintas en la tabla.
+     * @return el número de palabras distintas en la tabla.
+     */
+    public int getElementos() {
+	return elementos;
+    }
+
+    /* Duplica el número de casillas y vuelve a dispersar los identificadores
+       usando los códigos guardados. */
+    private void crece() {
+	int[] nuevas = new int[casillas.length * 2];
+	Arrays.fill(nuevas, VACIA);
+	int mascara = nuevas.length - 1;
+	for(int id = 0; id < elementos; id++){
+	    int i = hashes[id] & mascara;
+	    while(nuevas[i] != VACIA)
+		i = (i + 1) & mascara;
+	    nuevas[i] = id;
+	}
+	casillas = nuevas;
+    }
+
+    /**
+     * Regresa un iterador para iterar las palabras de la tabla en el orden en
+     * que se agregaron.
+     * @return un iterador para iterar la tabla.
+     */
+    @Override public Iterator<String> iterator() {
+        return new Iterador();
+    }
+}
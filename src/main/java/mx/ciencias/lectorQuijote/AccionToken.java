@@ -0,0 +1,17 @@
+package mx.ciencias.lectorQuijote;
+
+/**
+ * Interfaz para realizar acciones sobre las palabras que encuentra un {@link
+ * Tokenizador}.
+ */
+@FunctionalInterface
+public interface AccionToken {
+
+    /**
+     * Realiza una acción sobre una palabra. Los caracteres sólo son válidos
+     * durante la llamada; el buffer se reutiliza para la siguiente palabra.
+     * @param buffer el buffer con los caracteres de la palabra, en minúsculas.
+     * @param longitud el número de caracteres de la palabra en el buffer.
+     */
+    public void actua(char[] buffer, int longitud);
+}
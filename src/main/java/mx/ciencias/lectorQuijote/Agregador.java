@@ -0,0 +1,37 @@
+package mx.ciencias.lectorQuijote;
+
+import java.io.IOException;
+
+/**
+ * <p>Interfaz para estadísticas que se calculan mientras se lee el texto.</p>
+ *
+ * <p>El lector avisa a cada agregador de cada línea y de cada palabra que
+ * cuenta, en la misma lectura en la que cuenta las palabras; así se pueden
+ * calcular varias estadísticas sin volver a leer el texto. Al terminar, cada
+ * agregador escribe su resultado.</p>
+ */
+public interface Agregador {
+
+    /**
+     * Recibe una línea del texto, antes de sus palabras.
+     * @param linea la línea.
+     */
+    public default void linea(String linea) {}
+
+    /**
+     * Recibe una palabra contada. Los caracteres sólo son válidos durante la
+     * llamada.
+     * @param buffer el buffer con los caracteres de la palabra, en minúsculas.
+     * @param longitud el número de caracteres de la palabra en el buffer.
+     * @param id el identificador de la palabra en el diccionario.
+     * @param conteo las apariciones de la palabra contando ésta.
+     */
+    public void token(char[] buffer, int longitud, int id, int conteo);
+
+    /**
+     * Escribe el resultado del agregador.
+     * @param salida dónde escribir el resultado.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(Appendable salida) throws IOException;
+}
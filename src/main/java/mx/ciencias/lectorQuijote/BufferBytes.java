@@ -0,0 +1,210 @@
+package mx.ciencias.lectorQuijote;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>Clase para buffers de bytes reutilizables donde se formatea la
+ * salida.</p>
+ *
+ * <p>Las cadenas se codifican y los enteros se convierten a dígitos
+ * directamente en el arreglo, sin construir cadenas intermedias. Un buffer se
+ * vacía con {@link #limpia} y se vuelve a usar, así que formatear millones de
+ * líneas no asigna memoria por línea.</p>
+ */
+public class BufferBytes {
+
+    /* Los bytes. */
+    private byte[] bytes;
+    /* El número de bytes usados. */
+    private int longitud;
+    /* La codificación de las cadenas. */
+    private Charset codificacion;
+    /* Si la codificación es UTF-8. */
+    private boolean utf8;
+
+    /**
+     * Construye un buffer vacío.
+     * @param capacidad la capacidad inicial en bytes.
+     * @param codificacion la codificación de las cadenas.
+     */
+    public BufferBytes(int capacidad, Charset codificacion) {
+	bytes = new byte[Math.max(16, capacidad)];
+	this.codificacion = codificacion;
+	utf8 = codificacion.equals(StandardCharsets.UTF_8);
+    }
+
+    /* Se asegura de que quepan n bytes más. */
+    private void asegura(int n) {
+	if(longitud + n > bytes.length)
+	    bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, longitud + n));
+    }
+
+    /**
+     * Agrega un byte.
+     * @param b el byte.
+     * @return el buffer.
+     */
+    public BufferBytes agrega(int b) {
+	asegura(1);
+	bytes[longitud++] = (byte)b;
+	return this;
+    }
+
+    /**
+     * Agrega un arreglo de bytes.
+     * @param b los bytes.
+     * @return el buffer.
+     */
+    public BufferBytes agrega(byte[] b) {
+	asegura(b.length);
+	System.arraycopy(b, 0, bytes, longitud, b.length);
+	longitud += b.length;
+	return this;
+    }
+
+    /**
+     * Agrega una cadena codificada.
+     * @param cadena la cadena.
+     * @return el buffer.
+     */
+    public BufferBytes agrega(String cadena) {
+	int n = cadena.length();
+	asegura(n);
+	int inicio = longitud;
+	for(int i = 0; i < n; i++){
+	    char c = cadena.charAt(i);
+	    if(c >= 0x80){
+		longitud = inicio;
+		if(utf8)
+		    agregaUTF8(cadena);
+		else
+		    agrega(cadena.getBytes(codificacion));
+		return this;
+	    }
+	    bytes[longitud++] = (byte)c;
+	}
+	return this;
+    }
+
+    /* Agrega una cadena en UTF-8. */
+    private void agregaUTF8(String cadena) {
+	int n = cadena.length();
+	asegura(3 * n);
+	for(int i = 0; i < n; i++){
+	    char c = cadena.charAt(i);
+	    if(c < 0x80)
+		bytes[longitud++] = (byte)c;
+	    else if(c < 0x800){
+		bytes[longitud++] = (byte)(0xC0 | (c >> 6));
+		bytes[longitud++] = (byte)(0x80 | (c & 0x3F));
+	    } else if(Character.isHighSurrogate(c) && i + 1 < n &&
+		      Character.isLowSurrogate(cadena.charAt(i + 1))){
+		int p = Character.toCodePoint(c, cadena.charAt(++i));
+		asegura(4);
+		bytes[longitud++] = (byte)(0xF0 | (p >> 18));
+		bytes[longitud++] = (byte)(0x80 | ((p >> 12) & 0x3F));
+		bytes[longitud++] = (byte)(0x80 | ((p >> 6) & 0x3F));
+		bytes[longitud++] = (byte)(0x80 | (p & 0x3F));
+	    } else if(Character.isSurrogate(c))
+		bytes[longitud++] = '?';
+	    else{
+		bytes[longitud++] = (byte)(0xE0 | (c >> 12));
+		bytes[longitud++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+		bytes[longitud++] = (byte)(0x80 | (c & 0x3F));
+	    }
+	}
+    }
+
+    /**
+     * Agrega los dígitos decimales de un entero.
+     * @param valor el entero.
+     * @return el buffer.
+     */
+    public BufferBytes agregaEntero(long valor) {
+	if(valor < 0){
+	    if(valor == Long.MIN_VALUE)
+		return agrega(Long.toString(valor));
+	    agrega('-');
+	    valor = -valor;
+	}
+	int digitos = 1;
+	for(long v = valor; v >= 10; v /= 10)
+	    digitos++;
+	asegura(digitos);
+	for(int i = longitud + digitos - 1; i >= longitud; i--){
+	    bytes[i] = (byte)('0' + valor % 10);
+	    valor /= 10;
+	}
+	longitud += digitos;
+	return this;
+    }
+
+    /**
+     * Agrega un entero no negativo de longitud variable: siete bits por byte,
+     * con el bit alto indicando que siguen más.
+     * @param valor el entero.
+     * @return el buffer.
+     */
+    public BufferBytes agregaVariable(int valor) {
+	asegura(5);
+	while((valor & ~0x7F) != 0){
+	    bytes[longitud++] = (byte)((valor & 0x7F) | 0x80);
+	    valor >>>= 7;
+	}
+	bytes[longitud++] = (byte)valor;
+	return this;
+    }
+
+    /**
+     * Agrega un entero de cuatro bytes (<em>big-endian</em>).
+     * @param valor el entero.
+     * @return el buffer.
+     */
+    public BufferBytes agregaInt(int valor) {
+	asegura(4);
+	bytes[longitud++] = (byte)(valor >>> 24);
+	bytes[longitud++] = (byte)(valor >>> 16);
+	bytes[longitud++] = (byte)(valor >>> 8);
+	bytes[longitud++] = (byte)valor;
+	return this;
+    }
+
+    /**
+     * Regresa el número de bytes en el buffer.
+     * @return el número de bytes en el buffer.
+     */
+    public int getLongitud() {
+	return longitud;
+    }
+
+    /**
+     * Regresa una copia de los bytes en el buffer.
+     * @return una copia de los bytes en el buffer.
+     */
+    public byte[] getBytes() {
+	return Arrays.copyOf(bytes, longitud);
+    }
+
+    /**
+     * Vacía el buffer para reutilizarlo.
+     */
+    public void limpia() {
+	longitud = 0;
+    }
+
+    /**
+     * Escribe el contenido del buffer en un canal.
+     * @param canal el canal.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(FileChannel canal) throws IOException {
+	ByteBuffer b = ByteBuffer.wrap(bytes, 0, longitud);
+	while(b.hasRemaining())
+	    canal.write(b);
+    }
+}
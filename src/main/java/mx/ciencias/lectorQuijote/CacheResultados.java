@@ -0,0 +1,168 @@
+package mx.ciencias.lectorQuijote;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * <p>Clase para una caché en disco de listas de palabras ya calculadas.</p>
+ *
+ * <p>Cada lista se guarda con el nombre de la huella de 64 bits del contenido
+ * del archivo leído y de los ajustes con que se contó (modo del tokenizador,
+ * filtros, formato…). Calcular la huella es una sola lectura secuencial del
+ * archivo, mucho más barata que separarlo en palabras y construir el árbol;
+ * si la huella ya está en la caché, basta copiar la lista guardada.</p>
+ *
+ * <p>La fecha de modificación de cada lista se actualiza cada vez que se
+ * usa. Cuando la caché pasa de su tamaño máximo se borran las listas usadas
+ * hace más tiempo.</p>
+ */
+public class CacheResultados {
+
+    /**
+     * La versión de la forma de contar y escribir las listas. Forma parte de
+     * los ajustes de cada huella; se debe incrementar cada vez que cambie el
+     * tokenizador, un filtro o un formato de salida, para que las listas
+     * guardadas por versiones anteriores no se recuperen.
+     */
+    public static final int VERSION = 1;
+
+    /* Constantes de la función de dispersión. */
+    private static final long PRIMO_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIMO_2 = 0xC2B2AE3D27D4EB4FL;
+
+    /* El directorio de la caché. */
+    private Path directorio;
+    /* El tamaño máximo de la caché en bytes. */
+    private long maximo;
+
+    /**
+     * Construye una caché en un directorio, creándolo si no existe.
+     * @param directorio el directorio de la caché.
+     * @param maximo el tamaño máximo de la caché en bytes.
+     * @throws IOException si no se puede crear el directorio.
+     */
+    public CacheResultados(String directorio, long maximo) throws IOException {
+	this.directorio = Files.createDirectories(Paths.get(directorio));
+	this.maximo = maximo;
+    }
+
+    /**
+     * Calcula la huella de un archivo y de los ajustes con que se procesa.
+     * @param archivo el nombre del archivo.
+     * @param ajustes una descripción de los ajustes.
+     * @return la huella del archivo y los ajustes.
+     * @throws IOException si ocurre un error al leer el archivo.
+     */
+    public static long huella(String archivo, String ajustes) throws IOException {
+	long h = PRIMO_1;
+	long longitud;
+	ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+	try(FileChannel canal = FileChannel.open(Paths.get(archivo), StandardOpenOption.READ)){
+	    longitud = canal.size();
+	    while(canal.read(buffer) >= 0){
+		buffer.flip();
+		while(buffer.remaining() >= 8)
+		    h = Long.rotateLeft(h ^ mezcla(buffer.getLong()), 27) * PRIMO_1;
+		buffer.compact();
+	    }
+	}
+	buffer.flip();
+	while(buffer.hasRemaining())
+	    h = Long.rotateLeft(h ^ (buffer.get() & 0xFF) * PRIMO_2, 11) * PRIMO_1;
+	for(byte b: ajustes.getBytes(StandardCharsets.UTF_8))
+	    h = Long.rotateLeft(h ^ (b & 0xFF) * PRIMO_2, 11) * PRIMO_1;
+	return mezcla(h ^ longitud);
+    }
+
+    /* Mezcla los bits de un entero de 64 bits. */
+    private static long mezcla(long h) {
+	h ^= h >>> 33;
+	h *= PRIMO_2;
+	h ^= h >>> 29;
+	h *= PRIMO_1;
+	return h ^ (h >>> 32);
+    }
+
+    /* Regresa el archivo de la caché para una huella. */
+    private Path entrada(long huella) {
+	return directorio.resolve(String.format("%016x.res", huella));
+    }
+
+    /**
+     * Copia la lista guardada con una huella, si está en la caché.
+     * @param huella la huella.
+     * @param destino el archivo donde se copia la lista.
+     * @return <code>true</code> si la lista estaba en la caché,
+     *         <code>false</code> en otro caso.
+     * @throws IOException si ocurre un error al copiar.
+     */
+    public boolean recupera(long huella, String destino) throws IOException {
+	Path entrada = entrada(huella);
+	if(!Files.isRegularFile(entrada))
+	    return false;
+	Files.copy(entrada, Paths.get(destino), StandardCopyOption.REPLACE_EXISTING);
+	Files.setLastModifiedTime(entrada, FileTime.fromMillis(System.currentTimeMillis()));
+	return true;
+    }
+
+    /**
+     * Guarda una lista en la caché con una huella y borra las listas usadas
+     * hace más tiempo si la caché pasa de su tamaño máximo.
+     * @param huella la huella.
+     * @param origen el archivo con la lista.
+     * @throws IOException si ocurre un error al copiar.
+     */
+    public void guarda(long huella, String origen) throws IOException {
+	Path temporal = Files.createTempFile(directorio, "entrada", ".tmp");
+	try{
+	    Files.copy(Paths.get(origen), temporal, StandardCopyOption.REPLACE_EXISTING);
+	    try{
+		Files.move(temporal, entrada(huella), StandardCopyOption.REPLACE_EXISTING,
+			   StandardCopyOption.ATOMIC_MOVE);
+	    } catch(AtomicMoveNotSupportedException e){
+		Files.move(temporal, entrada(huella), StandardCopyOption.REPLACE_EXISTING);
+	    }
+	} finally{
+	    Files.deleteIfExists(temporal);
+	}
+	desaloja();
+    }
+
+    /* Borra las listas usadas hace más tiempo hasta que la caché no pase de
+       su tamaño máximo. */
+    private void desaloja() {
+	File[] entradas = directorio.toFile().listFiles((d, nombre) -> nombre.endsWith(".res"));
+	if(entradas == null)
+	    return;
+	long total = 0;
+	for(File f: entradas)
+	    total += f.length();
+	if(total <= maximo)
+	    return;
+	long[] fechas = new long[entradas.length];
+	Integer[] orden = new Integer[entradas.length];
+	for(int i = 0; i < entradas.length; i++){
+	    fechas[i] = entradas[i].lastModified();
+	    orden[i] = i;
+	}
+	Arrays.sort(orden, Comparator.comparingLong(i -> fechas[i]));
+	for(int i = 0; i < orden.length && total > maximo; i++){
+	    long tamaño = entradas[orden[i]].length();
+	    if(entradas[orden[i]].delete())
+		total -= tamaño;
+	}
+    }
+}
@@ -0,0 +1,40 @@
+package mx.ciencias.lectorQuijote;
+
+import java.text.Collator;
+import java.util.Locale;
+
+/**
+ * <p>Clase para ordenar palabras con las reglas de un idioma.</p>
+ *
+ * <p>Por ejemplo, en español la ñ va después de la n, y los acentos son
+ * diferencias secundarias: "año" va después de "anos" y "árbol" justo después
+ * de "arbol". Las reglas se aplican una sola vez por palabra al calcular su
+ * llave binaria en {@link #colada}; después, las comparaciones en el árbol
+ * son comparaciones de bytes.</p>
+ */
+public class Colacion {
+
+    /* El colador del idioma. */
+    private Collator colador;
+
+    /**
+     * Construye una colación para un idioma. Las mayúsculas no se distinguen,
+     * los acentos sí.
+     * @param idioma la etiqueta del idioma, por ejemplo <code>es</code>.
+     */
+    public Colacion(String idioma) {
+	colador = Collator.getInstance(Locale.forLanguageTag(idioma));
+	colador.setStrength(Collator.SECONDARY);
+	colador.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+    }
+
+    /**
+     * Regresa la palabra con su llave de colación precalculada.
+     * @param palabra la palabra.
+     * @return la palabra con su llave de colación.
+     */
+    public PalabraColada colada(String palabra) {
+	return new PalabraColada(palabra,
+				 colador.getCollationKey(palabra).toByteArray());
+    }
+}
@@ -0,0 +1,140 @@
+package mx.ciencias.lectorQuijote;
+
+import mx.ciencias.CountMin;
+import mx.ciencias.HyperLogLog;
+import mx.ciencias.ResumenFrecuentes;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <p>Clase para contar palabras de un flujo sin límite con memoria fija.</p>
+ *
+ * <p>En lugar de guardar cada palabra distinta, el contador estima el número
+ * de palabras distintas con un {@link HyperLogLog} y la frecuencia de cada
+ * palabra con un {@link CountMin}. La memoria depende sólo de los errores
+ * pedidos, no del tamaño del texto, así que sirve para entradas que no
+ * terminan o con demasiadas palabras distintas para contarlas exactamente.
+ * Ninguna de las dos estructuras construye cadenas.</p>
+ *
+ * <p>Si se pide, el contador también mantiene un {@link ResumenFrecuentes}
+ * para reportar las palabras más frecuentes en cualquier momento.</p>
+ */
+public class ContadorAproximado {
+
+    /** El número máximo de palabras más frecuentes que se reportan. */
+    public static final int MAXIMO_TOP = 10000;
+
+    /* La probabilidad de que una frecuencia se pase del error. */
+    private static final double DELTA = 0.01;
+    /* Cuántas palabras vigila el resumen por cada palabra reportada. */
+    private static final int VIGILADAS = 100;
+
+    /* El estimador de palabras distintas. */
+    private HyperLogLog distintas;
+    /* El estimador de frecuencias. */
+    private CountMin frecuencias;
+    /* El tokenizador de las líneas. */
+    private Tokenizador tokenizador;
+    /* El filtro de palabras, o null. */
+    private FiltroPalabras filtro;
+    /* El resumen de las palabras más frecuentes, o null. */
+    private ResumenFrecuentes frecuentes;
+    /* El número de palabras más frecuentes que se reportan. */
+    private int top;
+
+    /**
+     * Construye un contador aproximado.
+     * @param errorDistintas el error relativo típico del número de palabras
+     *        distintas.
+     * @param errorFrecuencias el error máximo de las frecuencias, como
+     *        fracción del número de palabras.
+     * @param tokenizador el tokenizador de las líneas.
+     * @param filtro el filtro de palabras, o <code>null</code>.
+     * @param top el número de palabras más frecuentes que se reportan, o 0
+     *        para no reportarlas.
+     * @throws IllegalArgumentException si los errores están fuera de rango o
+     *         <code>top</code> es negativo o mayor que {@link #MAXIMO_TOP}.
+     */
+    public ContadorAproximado(double errorDistintas, double errorFrecuencias,
+			      Tokenizador tokenizador, FiltroPalabras filtro, int top) {
+	distintas = new HyperLogLog(errorDistintas);
+	frecuencias = new CountMin(errorFrecuencias, DELTA);
+	this.tokenizador = tokenizador;
+	this.filtro = filtro;
+	if(top < 0 || top > MAXIMO_TOP)
+	    throw new IllegalArgumentException("El número de palabras más frecuentes " +
+					       "debe estar entre 0 y " + MAXIMO_TOP + ".");
+	this.top = top;
+	if(top > 0)
+	    frecuentes = new ResumenFrecuentes(VIGILADAS * top);
+    }
+
+    /**
+     * Cuenta las palabras de una línea.
+     * @param linea la línea.
+     */
+    public void analizaLinea(String linea) {
+	tokenizador.analiza(linea, (buffer, longitud) -> {
+		if(filtro != null && filtro.rechaza(buffer, longitud))
+		    return;
+		distintas.agrega(buffer, longitud);
+		frecuencias.incrementa(buffer, longitud);
+		if(frecuentes != null)
+		    frecuentes.incrementa(buffer, longitud);
+	    });
+    }
+
+    /**
+     * Regresa el número de palabras contadas.
+     * @return el número de palabras contadas.
+     */
+    public long getPalabras() {
+	return frecuencias.getTotal();
+    }
+
+    /**
+     * Regresa la estimación del número de palabras distintas.
+     * @return la estimación del número de palabras distintas.
+     */
+    public long getDistintas() {
+	return distintas.estimacion();
+    }
+
+    /**
+     * Regresa la estimación de la frecuencia de una palabra.
+     * @param palabra la palabra, en minúsculas.
+     * @return la estimación de la frecuencia, que nunca es menor que la real.
+     */
+    public int frecuencia(String palabra) {
+	return frecuencias.estima(palabra);
+    }
+
+    /**
+     * Escribe las estimaciones, sus errores, las frecuencias estimadas de
+     * las palabras recibidas y, si se pidieron, las palabras más frecuentes
+     * con la cota de error de cada una. Se puede llamar en cualquier momento
+     * entre dos líneas; no modifica las estimaciones.
+     * @param salida dónde escribir.
+     * @param palabras las palabras cuyas frecuencias se escriben.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void escribe(Appendable salida, List<String> palabras) throws IOException {
+	salida.append("Número aproximado de palabras diferentes: " + getDistintas() +
+		      String.format(Locale.ROOT, " (±%.1f%%)\n", 100 * distintas.getError()));
+	salida.append("Palabras: " + frecuencias.getTotal() + "\n");
+	salida.append("Error máximo de las frecuencias: " + frecuencias.getError() +
+		      " (probabilidad " + (1 - DELTA) + ")\n");
+	salida.append("Memoria: " + (distintas.getMemoria() + frecuencias.getMemoria()) +
+		      " bytes\n");
+	for(String palabra: palabras)
+	    salida.append(palabra + ": " + frecuencia(palabra) + "\n");
+	if(frecuentes == null)
+	    return;
+	salida.append("Más frecuentes (error máximo " +
+		      frecuentes.getTotal() / frecuentes.getCapacidad() + "):\n");
+	for(String palabra: frecuentes.frecuentes(top))
+	    salida.append(palabra + ": " + frecuentes.cuenta(palabra) +
+			  " (±" + frecuentes.error(palabra) + ")\n");
+    }
+}
@@ -0,0 +1,115 @@
+package mx.ciencias.lectorQuijote;
+
+import mx.ciencias.*;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * <p>Clase para contar bigramas y trigramas de un texto.</p>
+ *
+ * <p>Cada palabra distinta recibe un identificador denso en una {@link
+ * TablaPalabras}; cada n-grama se cuenta como una llave <code>long</code>
+ * empacada en una {@link TablaConteosLargos}, así que no se construye ninguna
+ * cadena por n-grama mientras se lee el texto. Los n-gramas cruzan los fines
+ * de línea; si hay un filtro, las palabras que rechaza se saltan y los
+ * n-gramas se forman con las palabras que quedan.</p>
+ */
+public class ContadorNGramas {
+
+    /* El número de palabras por n-grama. */
+    private int n;
+    /* Los identificadores de las palabras. */
+    private TablaPalabras tabla;
+    /* Los conteos de los n-gramas. */
+    private TablaConteosLargos conteos;
+    /* Los identificadores de las últimas n palabras leídas. */
+    private int[] ventana;
+    /* Cuántas palabras se han leído, hasta n. */
+    private int leidas;
+    /* El tokenizador de las líneas. */
+    private Tokenizador tokenizador;
+    /* El filtro de palabras, o null. */
+    private FiltroPalabras filtro;
+
+    /**
+     * Construye un contador de n-gramas.
+     * @param n el número de palabras por n-grama (2 o 3).
+     * @throws IllegalArgumentException si <code>n</code> no es 2 ni 3.
+     */
+    public ContadorNGramas(int n) {
+	this(n, null);
+    }
+
+    /**
+     * Construye un contador de n-gramas que salta las palabras que rechaza un
+     * filtro.
+     * @param n el número de palabras por n-grama (2 o 3).
+     * @param filtro el filtro de palabras, o <code>null</code>.
+     * @throws IllegalArgumentException si <code>n</code> no es 2 ni 3.
+     */
+    public ContadorNGramas(int n, FiltroPalabras filtro) {
+	if(n != 2 && n != 3)
+	    throw new IllegalArgumentException("Sólo hay bigramas y trigramas.");
+	this.n = n;
+	tabla = new TablaPalabras();
+	conteos = new TablaConteosLargos();
+	ventana = new int[n];
+	tokenizador = new Tokenizador();
+	this.filtro = filtro;
+    }
+
+    /**
+     * Cuenta los n-gramas de una línea, continuando la ventana de la línea
+     * anterior.
+     * @param linea la línea a analizar.
+     */
+    public void analizaLinea(String linea) {
+	tokenizador.analiza(linea, (buffer, longitud) -> {
+		if(filtro != null && filtro.rechaza(buffer, longitud))
+		    return;
+		int id = tabla.id(buffer, longitud);
+		if(leidas < n)
+		    ventana[leidas++] = id;
+		else{
+		    System.arraycopy(ventana, 1, ventana, 0, n - 1);
+		    ventana[n - 1] = id;
+		}
+		if(leidas == n)
+		    conteos.incrementa(NGrama.empaca(ventana, n));
+	    });
+    }
+
+    /**
+     * Regresa el número de n-gramas distintos contados.
+     * @return el número de n-gramas distintos contados.
+     */
+    public int getElementos() {
+	return conteos.getElementos();
+    }
+
+    /**
+     * Escribe los n-gramas en orden alfabético con su número de apariciones.
+     * Los n-gramas se ordenan en un {@link ArbolRojinegro} y se escriben con
+     * su recorrido in-order.
+     * @param writer el escritor donde se escriben los n-gramas.
+     * @throws IOException si ocurre un error de escritura.
+     */
+    public void escribe(FileWriter writer) throws IOException {
+	ArbolRojinegro<NGrama> arbol = new ArbolRojinegro<NGrama>();
+	for(long llave: conteos.llaves())
+	    arbol.agrega(new NGrama(llave, n, tabla));
+	writer.write("Número de " + n + "-gramas diferentes: " + getElementos() + "\n");
+	arbol.dfsInOrder(new AccionVerticeArbolBinario<NGrama>(){
+		@Override
+		public void actua(VerticeArbolBinario<NGrama> vertice){
+		    try{
+			NGrama ngrama = vertice.get();
+			writer.write(ngrama + ": " + conteos.conteo(ngrama.getLlave()) + "\n");
+		    } catch(IOException e){
+			e.printStackTrace();
+			System.exit(1);
+		    }
+		}
+	    });
+    }
+}
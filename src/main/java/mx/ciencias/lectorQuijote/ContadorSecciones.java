@@ -0,0 +1,186 @@
+package mx.ciencias.lectorQuijote;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Clase para contar las palabras de cada sección de un texto (por ejemplo,
+ * de cada capítulo).</p>
+ *
+ * <p>Una sección empieza en cada línea que cumple un patrón de encabezado.
+ * El contador es un {@link Agregador}: recibe las palabras de la misma lectura
+ * que cuenta el texto completo y usa los mismos identificadores del
+ * diccionario compartido, así que cada sección sólo guarda los pares
+ * (identificador, conteo) de sus palabras, ordenados por identificador, sin
+ * cadenas ni árboles propios. Al escribir, los pares de todas las secciones
+ * se agrupan por identificador y el recorrido en orden del árbol global pasa
+ * cada palabra a {@link #agrega}, que la anota sólo en las tablas de las
+ * secciones donde aparece; así todas las tablas salen en orden alfabético de
+ * un solo recorrido, en tiempo proporcional al número de pares.</p>
+ */
+public class ContadorSecciones implements Agregador {
+
+    /* Los nombres de las secciones. */
+    private List<String> nombres;
+    /* Los identificadores de las palabras de cada sección cerrada, en orden. */
+    private List<int[]> identificadores;
+    /* Los conteos de las palabras de cada sección cerrada. */
+    private List<int[]> conteos;
+    /* Los conteos de la sección actual, indexados por identificador. */
+    private int[] actual;
+    /* Los identificadores de las palabras de la sección actual. */
+    private int[] tocados;
+    /* El número de palabras distintas de la sección actual. */
+    private int distintasActual;
+    /* El nombre de la sección actual. */
+    private String nombreActual;
+    /* Reconoce los encabezados de sección. */
+    private Matcher encabezado;
+    /* Para cada identificador, dónde empiezan sus pares en secciones y
+       apariciones; lo construye agrega. */
+    private int[] inicios;
+    /* Las secciones de los pares agrupados por identificador. */
+    private int[] secciones;
+    /* Los conteos de los pares agrupados por identificador. */
+    private int[] apariciones;
+    /* Las tablas de las secciones, llenadas por agrega. */
+    private StringBuilder[] tablas;
+    /* El número de renglones de la tabla de cada sección. */
+    private int[] renglones;
+
+    /**
+     * Construye un contador de secciones.
+     * @param patron la expresión regular que reconoce las líneas que empiezan
+     *        una sección; basta con que aparezca en algún lugar de la línea.
+     * @throws java.util.regex.PatternSyntaxException si el patrón no es una
+     *         expresión regular válida.
+     */
+    public ContadorSecciones(String patron) {
+	encabezado = Pattern.compile(patron).matcher("");
+	nombres = new ArrayList<String>();
+	identificadores = new ArrayList<int[]>();
+	conteos = new ArrayList<int[]>();
+	nombreActual = "(inicio)";
+	actual = new int[1024];
+	tocados = new int[1024];
+    }
+
+    @Override public void linea(String linea) {
+	if(encabezado.reset(linea).find()){
+	    cierra();
+	    nombreActual = linea.trim();
+	}
+    }
+
+    @Override public void token(char[] buffer, int longitud, int id, int conteo) {
+	if(id >= actual.length)
+	    actual = Arrays.copyOf(actual, Math.max(2 * actual.length, id + 1));
+	if(actual[id]++ == 0){
+	    if(distintasActual == tocados.length)
+		tocados = Arrays.copyOf(tocados, 2 * tocados.length);
+	    tocados[distintasActual++] = id;
+	}
+    }
+
+    /* Guarda los pares de la sección actual ordenados por identificador y
+       empieza otra. Las secciones sin palabras (como el texto antes del
+       primer encabezado, si no tiene) no se guardan. */
+    private void cierra() {
+	if(distintasActual > 0){
+	    int[] ids = Arrays.copyOf(tocados, distintasActual);
+	    Arrays.sort(ids);
+	    int[] c = new int[ids.length];
+	    for(int i = 0; i < ids.length; i++){
+		c[i] = actual[ids[i]];
+		actual[ids[i]] = 0;
+	    }
+	    nombres.add(nombreActual);
+	    identificadores.add(ids);
+	    conteos.add(c);
+	}
+	distintasActual = 0;
+    }
+
+    /**
+     * Regresa el número de secciones con palabras.
+     * @return el número de secciones con palabras.
+     */
+    public int getSecciones() {
+	cierra();
+	return nombres.size();
+    }
+
+    /* Agrupa los pares de todas las secciones por identificador, conservando
+       el orden de las secciones dentro de cada grupo. */
+    private void agrupa() {
+	cierra();
+	int n = 0, pares = 0;
+	for(int[] ids: identificadores){
+	    pares += ids.length;
+	    if(ids[ids.length - 1] >= n)
+		n = ids[ids.length - 1] + 1;
+	}
+	inicios = new int[n + 1];
+	for(int[] ids: identificadores)
+	    for(int id: ids)
+		inicios[id + 1]++;
+	for(int id = 0; id < n; id++)
+	    inicios[id + 1] += inicios[id];
+	secciones = new int[pares];
+	apariciones = new int[pares];
+	int[] siguiente = Arrays.copyOf(inicios, n);
+	for(int s = 0; s < identificadores.size(); s++){
+	    int[] ids = identificadores.get(s), c = conteos.get(s);
+	    for(int i = 0; i < ids.length; i++){
+		int k = siguiente[ids[i]]++;
+		secciones[k] = s;
+		apariciones[k] = c[i];
+	    }
+	}
+	tablas = new StringBuilder[nombres.size()];
+	for(int s = 0; s < tablas.length; s++)
+	    tablas[s] = new StringBuilder();
+	renglones = new int[nombres.size()];
+    }
+
+    /**
+     * Anota una palabra en las tablas de las secciones donde aparece. Se debe
+     * llamar con las palabras en orden, después de leer todo el texto.
+     * @param palabra la palabra.
+     * @param id el identificador de la palabra en el diccionario.
+     */
+    public void agrega(String palabra, int id) {
+	if(tablas == null)
+	    agrupa();
+	if(id + 1 >= inicios.length)
+	    return;
+	for(int k = inicios[id]; k < inicios[id + 1]; k++){
+	    int s = secciones[k];
+	    tablas[s].append(palabra).append(": ").append(apariciones[k]).append('\n');
+	    renglones[s]++;
+	}
+    }
+
+    /**
+     * Escribe las tablas de todas las secciones, cada una con su nombre y su
+     * número de palabras distintas, que es el de las palabras anotadas con
+     * {@link #agrega}.
+     * @param salida dónde escribir las tablas.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    @Override public void escribe(Appendable salida) throws IOException {
+	getSecciones();
+	for(int s = 0; s < nombres.size(); s++){
+	    int distintas = tablas == null ? 0 : renglones[s];
+	    salida.append("Sección: " + nombres.get(s) + "\n");
+	    salida.append("Número de palabtras diferentes: " + distintas + "\n");
+	    if(tablas != null)
+		salida.append(tablas[s]);
+	    salida.append('\n');
+	}
+    }
+}
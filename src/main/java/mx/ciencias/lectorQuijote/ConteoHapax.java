@@ -0,0 +1,28 @@
+package mx.ciencias.lectorQuijote;
+
+import java.io.IOException;
+
+/**
+ * Agregador que cuenta los hapax legómena: las palabras que aparecen una sola
+ * vez en el texto. Una palabra se vuelve hapax con su primera aparición y deja
+ * de serlo con la segunda, así que basta un contador.
+ */
+public class ConteoHapax implements Agregador {
+
+    /* El número de palabras que han aparecido exactamente una vez. */
+    private int hapax;
+
+    /* Una palabra se vuelve hapax en su primera aparición y deja de serlo en
+       la segunda. */
+    @Override public void token(char[] buffer, int longitud, int id, int conteo) {
+	if(conteo == 1)
+	    hapax++;
+	else if(conteo == 2)
+	    hapax--;
+    }
+
+    /* Escribe el número de hapax. */
+    @Override public void escribe(Appendable salida) throws IOException {
+	salida.append("Hapax legómena: " + hapax + "\n");
+    }
+}
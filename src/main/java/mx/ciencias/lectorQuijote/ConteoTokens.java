@@ -0,0 +1,41 @@
+package mx.ciencias.lectorQuijote;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Agregador que cuenta las líneas, las palabras, las palabras distintas y la
+ * proporción entre palabras distintas y palabras (type/token ratio).
+ */
+public class ConteoTokens implements Agregador {
+
+    /* El número de líneas. */
+    private long lineas;
+    /* El número de palabras. */
+    private long tokens;
+    /* El número de palabras distintas. */
+    private int tipos;
+
+    /* Cuenta la línea. */
+    @Override public void linea(String linea) {
+	lineas++;
+    }
+
+    /* Cuenta la palabra, y la cuenta como distinta si es su primera
+       aparición. */
+    @Override public void token(char[] buffer, int longitud, int id, int conteo) {
+	tokens++;
+	if(conteo == 1)
+	    tipos++;
+    }
+
+    /* Escribe los conteos y la proporción; el formato no depende de la
+       configuración regional. */
+    @Override public void escribe(Appendable salida) throws IOException {
+	salida.append("Líneas: " + lineas + "\n");
+	salida.append("Palabras: " + tokens + "\n");
+	salida.append("Palabras distintas: " + tipos + "\n");
+	salida.append(String.format(Locale.ROOT, "Proporción distintas/palabras: %.6f\n",
+				    tokens == 0 ? 0.0 : (double)tipos / tokens));
+    }
+}
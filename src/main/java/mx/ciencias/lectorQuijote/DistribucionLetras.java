@@ -0,0 +1,55 @@
+package mx.ciencias.lectorQuijote;
+
+import mx.ciencias.TablaConteosLargos;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Agregador que cuenta cuántas veces aparece cada letra en las palabras del
+ * texto. Los dígitos y los guiones bajos de las palabras no se cuentan. Las
+ * letras ASCII se cuentan en un arreglo; las demás (letras acentuadas en modo
+ * Unicode) en una {@link TablaConteosLargos}.
+ */
+public class DistribucionLetras implements Agregador {
+
+    /* Las apariciones de cada letra ASCII. */
+    private long[] ascii = new long[128];
+    /* Las apariciones de las demás letras. */
+    private TablaConteosLargos otras = new TablaConteosLargos();
+    /* El número total de letras. */
+    private long total;
+
+    /* Cuenta las letras de la palabra. */
+    @Override public void token(char[] buffer, int longitud, int id, int conteo) {
+	for(int i = 0; i < longitud; i++){
+	    char c = buffer[i];
+	    if(!Character.isLetter(c))
+		continue;
+	    if(c < 128)
+		ascii[c]++;
+	    else
+		otras.incrementa(c);
+	    total++;
+	}
+    }
+
+    /* Escribe cada letra con sus apariciones y su porcentaje, primero las
+       ASCII y después las demás, en orden de su código. */
+    @Override public void escribe(Appendable salida) throws IOException {
+	salida.append("Letras:\n");
+	long[] llaves = otras.llaves();
+	Arrays.sort(llaves);
+	for(char c = 0; c < 128; c++)
+	    if(ascii[c] > 0)
+		escribe(salida, c, ascii[c]);
+	for(long c: llaves)
+	    escribe(salida, (char)c, otras.conteo(c));
+    }
+
+    /* Escribe una letra con sus apariciones y su porcentaje; el formato no
+       depende de la configuración regional. */
+    private void escribe(Appendable salida, char c, long n) throws IOException {
+	salida.append(String.format(Locale.ROOT, "%c: %d (%.4f%%)\n", c, n, 100.0 * n / total));
+    }
+}
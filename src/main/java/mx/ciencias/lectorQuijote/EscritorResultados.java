@@ -0,0 +1,114 @@
+package mx.ciencias.lectorQuijote;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * <p>Clase para escribir la lista de palabras con sus conteos.</p>
+ *
+ * <p>Las entradas se formatean en buffers de bytes grandes que se reutilizan
+ * y se escriben con un {@link FileChannel}. Si la lista es grande, se parte
+ * en trozos consecutivos que se formatean en paralelo, cada uno en su propio
+ * buffer; los buffers se escriben en el orden de los trozos y regresan a una
+ * reserva para el siguiente trozo, así que nunca hay más de unos cuantos
+ * trozos formateados en memoria.</p>
+ */
+public class EscritorResultados {
+
+    /* El número de entradas por trozo. */
+    private static final int TROZO = 1 << 15;
+    /* La capacidad inicial de cada buffer. */
+    private static final int CAPACIDAD = 1 << 20;
+
+    private EscritorResultados() {}
+
+    /**
+     * Escribe la lista en un archivo.
+     * @param archivo el nombre del archivo.
+     * @param formato el formato de la lista.
+     * @param codificacion la codificación pedida para las cadenas; el formato
+     *        puede usar otra.
+     * @param palabras las palabras, en el orden en que se escriben.
+     * @param conteos los conteos de las palabras.
+     * @param n el número de palabras a escribir.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public static void escribe(String archivo, FormatoSalida formato, Charset codificacion,
+			       String[] palabras, int[] conteos, int n) throws IOException {
+	Charset c = formato.codificacion(codificacion);
+	try(FileChannel canal = FileChannel.open(Paths.get(archivo),
+						  StandardOpenOption.CREATE,
+						  StandardOpenOption.WRITE,
+						  StandardOpenOption.TRUNCATE_EXISTING)){
+	    BufferBytes buffer = new BufferBytes(CAPACIDAD, c);
+	    formato.inicio(buffer, n);
+	    int hilos = Runtime.getRuntime().availableProcessors();
+	    if(hilos > 1 && n >= 4 * TROZO){
+		buffer.escribe(canal);
+		escribeParalelo(canal, formato, c, palabras, conteos, n, hilos);
+		buffer.limpia();
+	    } else
+		for(int i = 0; i < n; i++){
+		    formato.entrada(buffer, palabras[i], conteos[i], i == 0);
+		    if(buffer.getLongitud() >= CAPACIDAD){
+			buffer.escribe(canal);
+			buffer.limpia();
+		    }
+		}
+	    formato.fin(buffer);
+	    buffer.escribe(canal);
+	}
+    }
+
+    /* Formatea los trozos en paralelo, con a lo más 2*hilos trozos en
+       vuelo, y los escribe en orden. */
+    private static void escribeParalelo(FileChannel canal, FormatoSalida formato,
+					Charset codificacion, String[] palabras,
+					int[] conteos, int n, int hilos) throws IOException {
+	BlockingQueue<BufferBytes> reserva = new ArrayBlockingQueue<BufferBytes>(2 * hilos);
+	for(int i = 0; i < 2 * hilos; i++)
+	    reserva.add(new BufferBytes(CAPACIDAD, codificacion));
+	ArrayDeque<CompletableFuture<BufferBytes>> enVuelo =
+	    new ArrayDeque<CompletableFuture<BufferBytes>>();
+	try{
+	    for(int inicio = 0; inicio < n; inicio += TROZO){
+		if(enVuelo.size() == 2 * hilos)
+		    escribeSiguiente(canal, enVuelo, reserva);
+		BufferBytes buffer = reserva.take();
+		int desde = inicio, hasta = Math.min(n, inicio + TROZO);
+		enVuelo.add(CompletableFuture.supplyAsync(() -> {
+			    for(int i = desde; i < hasta; i++)
+				formato.entrada(buffer, palabras[i], conteos[i], i == 0);
+			    return buffer;
+			}));
+	    }
+	    while(!enVuelo.isEmpty())
+		escribeSiguiente(canal, enVuelo, reserva);
+	} catch(InterruptedException e){
+	    Thread.currentThread().interrupt();
+	    throw new IOException("Escritura interrumpida.", e);
+	} catch(ExecutionException e){
+	    throw new IOException("Error al formatear la lista.", e.getCause());
+	}
+    }
+
+    /* Espera el trozo más antiguo, lo escribe y regresa su buffer a la
+       reserva. */
+    private static void escribeSiguiente(FileChannel canal,
+					 ArrayDeque<CompletableFuture<BufferBytes>> enVuelo,
+					 BlockingQueue<BufferBytes> reserva)
+	throws IOException, InterruptedException, ExecutionException {
+	BufferBytes buffer = enVuelo.poll().get();
+	buffer.escribe(canal);
+	buffer.limpia();
+	reserva.add(buffer);
+    }
+}
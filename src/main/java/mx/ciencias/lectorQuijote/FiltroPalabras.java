@@ -0,0 +1,96 @@
+package mx.ciencias.lectorQuijote;
+
+import mx.ciencias.ConjuntoPerfecto;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * <p>Clase para filtros de palabras entre el tokenizador y el contador.</p>
+ *
+ * <p>Un filtro rechaza las palabras vacías (como "de", "que", "la" o "y") y
+ * las palabras más cortas que una longitud mínima. Las palabras vacías se
+ * compilan al construir el filtro en un {@link ConjuntoPerfecto}, así que
+ * rechazar una palabra cuesta una sola consulta sobre el buffer del
+ * tokenizador, sin construir ninguna cadena.</p>
+ */
+public class FiltroPalabras {
+
+    /** Palabras vacías del español incluidas en el programa. */
+    public static final String[] VACIAS_ES = {
+	"a", "al", "algo", "algunas", "algunos", "ante", "antes", "como", "con",
+	"contra", "cual", "cuando", "de", "del", "desde", "donde", "durante",
+	"e", "el", "él", "ella", "ellas", "ellos", "en", "entre", "era", "es",
+	"esa", "esas", "ese", "eso", "esos", "esta", "está", "estas", "este",
+	"esto", "estos", "fue", "ha", "hasta", "la", "las", "le", "les", "lo",
+	"los", "más", "me", "mi", "mis", "mucho", "muy", "nada", "ni", "no",
+	"nos", "o", "os", "para", "pero", "poco", "por", "porque", "que", "qué",
+	"quien", "se", "sea", "si", "sí", "sin", "sino", "sobre", "su",
+	"sus", "también", "tan", "te", "tiene", "todo", "todos", "tu", "tus",
+	"u", "un", "una", "uno", "unos", "vos", "y", "ya", "yo"
+    };
+
+    /* Las palabras vacías. */
+    private ConjuntoPerfecto vacias;
+    /* La longitud mínima de las palabras aceptadas. */
+    private int longitudMinima;
+
+    /**
+     * Construye un filtro.
+     * @param vacias las palabras vacías, en minúsculas.
+     * @param longitudMinima la longitud mínima de las palabras aceptadas.
+     */
+    public FiltroPalabras(String[] vacias, int longitudMinima) {
+	this.vacias = new ConjuntoPerfecto(vacias);
+	this.longitudMinima = longitudMinima;
+    }
+
+    /**
+     * Lee una lista de palabras vacías. Si el nombre es <code>es</code> se
+     * regresa la lista incluida en el programa; si no, se lee el archivo con
+     * ese nombre, con una palabra por línea. Las líneas vacías y las que
+     * empiezan con <code>#</code> se ignoran.
+     * @param nombre <code>es</code> o el nombre del archivo.
+     * @return las palabras vacías en minúsculas.
+     * @throws IOException si ocurre un error al leer el archivo.
+     */
+    public static String[] leeVacias(String nombre) throws IOException {
+	if(nombre.equals("es"))
+	    return VACIAS_ES;
+	List<String> lineas = Files.readAllLines(Paths.get(nombre), StandardCharsets.UTF_8);
+	return lineas.stream().map(String::trim)
+	    .filter(l -> !l.isEmpty() && !l.startsWith("#"))
+	    .map(String::toLowerCase).toArray(String[]::new);
+    }
+
+    /**
+     * Nos dice si todas las palabras de una lista son ASCII. El tokenizador
+     * en modo ASCII parte las palabras en las letras que no son ASCII, así
+     * que en ese modo una palabra vacía con acentos (como "qué") nunca se
+     * rechaza.
+     * @param palabras las palabras.
+     * @return <code>true</code> si todas las palabras son ASCII,
+     *         <code>false</code> en otro caso.
+     */
+    public static boolean soloAscii(String[] palabras) {
+	for(String palabra: palabras)
+	    for(int i = 0; i < palabra.length(); i++)
+		if(palabra.charAt(i) >= 128)
+		    return false;
+	return true;
+    }
+
+    /**
+     * Nos dice si el filtro rechaza la palabra formada por los primeros
+     * <code>longitud</code> caracteres del buffer.
+     * @param buffer los caracteres de la palabra, en minúsculas.
+     * @param longitud el número de caracteres de la palabra.
+     * @return <code>true</code> si la palabra se rechaza, <code>false</code>
+     *         en otro caso.
+     */
+    public boolean rechaza(char[] buffer, int longitud) {
+	return longitud < longitudMinima || vacias.contiene(buffer, longitud);
+    }
+}
@@ -0,0 +1,155 @@
+package mx.ciencias.lectorQuijote;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>Enumeración para los formatos de la lista de palabras.</p>
+ *
+ * <p>Cada formato escribe un encabezado, una entrada por palabra y un final
+ * en un {@link BufferBytes}. Las entradas no dependen unas de otras (salvo
+ * por saber si son la primera), así que rangos distintos de la lista se
+ * pueden formatear en paralelo.</p>
+ */
+public enum FormatoSalida {
+
+    /** El formato de siempre: <code>palabra: conteo</code> por línea. */
+    TEXTO("txt") {
+	@Override public void inicio(BufferBytes salida, int elementos) {
+	    salida.agrega("Número de palabtras diferentes: ").agregaEntero(elementos)
+		.agrega('\n');
+	}
+	@Override public void entrada(BufferBytes salida, String palabra, int conteo,
+				      boolean primera) {
+	    salida.agrega(palabra).agrega(':').agrega(' ').agregaEntero(conteo).agrega('\n');
+	}
+    },
+
+    /** Valores separados por comas, con un renglón de títulos. */
+    CSV("csv") {
+	@Override public void inicio(BufferBytes salida, int elementos) {
+	    salida.agrega("palabra,conteo\n");
+	}
+	@Override public void entrada(BufferBytes salida, String palabra, int conteo,
+				      boolean primera) {
+	    if(palabra.indexOf(',') < 0 && palabra.indexOf('"') < 0)
+		salida.agrega(palabra);
+	    else
+		salida.agrega('"').agrega(palabra.replace("\"", "\"\"")).agrega('"');
+	    salida.agrega(',').agregaEntero(conteo).agrega('\n');
+	}
+    },
+
+    /** Un objeto JSON en UTF-8 con el número de palabras y los conteos. */
+    JSON("json") {
+	@Override public void inicio(BufferBytes salida, int elementos) {
+	    salida.agrega("{\"diferentes\": ").agregaEntero(elementos)
+		.agrega(", \"conteos\": {");
+	}
+	@Override public void entrada(BufferBytes salida, String palabra, int conteo,
+				      boolean primera) {
+	    if(!primera)
+		salida.agrega(',');
+	    salida.agrega("\n  \"");
+	    if(sinEscapes(palabra))
+		salida.agrega(palabra);
+	    else{
+		StringBuilder escapada = new StringBuilder();
+		for(int i = 0; i < palabra.length(); i++){
+		    char c = palabra.charAt(i);
+		    if(c == '"' || c == '\\')
+			escapada.append('\\').append(c);
+		    else if(c < 0x20)
+			escapada.append(String.format("\\u%04x", (int)c));
+		    else
+			escapada.append(c);
+		}
+		salida.agrega(escapada.toString());
+	    }
+	    salida.agrega("\": ").agregaEntero(conteo);
+	}
+	@Override public void fin(BufferBytes salida) {
+	    salida.agrega("\n}}\n");
+	}
+	@Override public Charset codificacion(Charset codificacion) {
+	    return StandardCharsets.UTF_8;
+	}
+    },
+
+    /**
+     * Binario compacto: el número mágico <code>LQRS</code>, el número de
+     * palabras como <code>int</code> y por cada palabra su conteo, la
+     * longitud en bytes de la palabra (ambos como enteros de longitud
+     * variable) y la palabra en UTF-8.
+     */
+    BINARIO("bin") {
+	@Override public void inicio(BufferBytes salida, int elementos) {
+	    salida.agregaInt(0x4C515253).agregaInt(elementos);
+	}
+	@Override public void entrada(BufferBytes salida, String palabra, int conteo,
+				      boolean primera) {
+	    byte[] bytes = palabra.getBytes(StandardCharsets.UTF_8);
+	    salida.agregaVariable(conteo).agregaVariable(bytes.length).agrega(bytes);
+	}
+	@Override public Charset codificacion(Charset codificacion) {
+	    return StandardCharsets.UTF_8;
+	}
+    };
+
+    /* Nos dice si una palabra se puede escribir en JSON sin escapes. */
+    private static boolean sinEscapes(String palabra) {
+	for(int i = 0; i < palabra.length(); i++){
+	    char c = palabra.charAt(i);
+	    if(c == '"' || c == '\\' || c < 0x20)
+		return false;
+	}
+	return true;
+    }
+
+    /* La extensión de los archivos en este formato. */
+    private final String extension;
+
+    private FormatoSalida(String extension) {
+	this.extension = extension;
+    }
+
+    /**
+     * Regresa la extensión de los archivos en este formato.
+     * @return la extensión de los archivos en este formato.
+     */
+    public String getExtension() {
+	return extension;
+    }
+
+    /**
+     * Escribe el encabezado.
+     * @param salida el buffer donde se escribe.
+     * @param elementos el número de palabras.
+     */
+    public abstract void inicio(BufferBytes salida, int elementos);
+
+    /**
+     * Escribe la entrada de una palabra.
+     * @param salida el buffer donde se escribe.
+     * @param palabra la palabra.
+     * @param conteo el conteo de la palabra.
+     * @param primera si es la primera entrada de la lista.
+     */
+    public abstract void entrada(BufferBytes salida, String palabra, int conteo,
+				 boolean primera);
+
+    /**
+     * Escribe el final. Por omisión no escribe nada.
+     * @param salida el buffer donde se escribe.
+     */
+    public void fin(BufferBytes salida) {}
+
+    /**
+     * Regresa la codificación de las cadenas en este formato.
+     * @param codificacion la codificación pedida.
+     * @return la codificación que usa el formato; por omisión, la pedida.
+     */
+    public Charset codificacion(Charset codificacion) {
+	return codificacion;
+    }
+}
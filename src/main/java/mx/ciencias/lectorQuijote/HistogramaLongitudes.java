@@ -0,0 +1,33 @@
+package mx.ciencias.lectorQuijote;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Agregador que cuenta cuántas palabras del texto hay de cada longitud.
+ */
+public class HistogramaLongitudes implements Agregador {
+
+    /* El número de palabras de cada longitud. */
+    private long[] longitudes = new long[32];
+    /* La longitud más grande vista. */
+    private int maxima;
+
+    /* Cuenta la palabra en su longitud, agrandando el arreglo si hace
+       falta. */
+    @Override public void token(char[] buffer, int longitud, int id, int conteo) {
+	if(longitud >= longitudes.length)
+	    longitudes = Arrays.copyOf(longitudes, 2 * longitud);
+	longitudes[longitud]++;
+	if(longitud > maxima)
+	    maxima = longitud;
+    }
+
+    /* Escribe el número de palabras de cada longitud que aparece. */
+    @Override public void escribe(Appendable salida) throws IOException {
+	salida.append("Palabras por longitud:\n");
+	for(int l = 1; l <= maxima; l++)
+	    if(longitudes[l] > 0)
+		salida.append(l + ": " + longitudes[l] + "\n");
+    }
+}
@@ -0,0 +1,182 @@
+package mx.ciencias.lectorQuijote;
+
+import mx.ciencias.*;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * <p>Clase para índices de apariciones de palabras de un archivo.</p>
+ *
+ * <p>Un índice cuenta las palabras del archivo una sola vez al construirse y
+ * después sólo se consulta: nunca se modifica, así que varios hilos pueden
+ * consultarlo al mismo tiempo sin sincronizarse. Las palabras se ordenan en un
+ * {@link ArbolRojinegro} que se congela al terminar de leer el archivo, para
+ * las consultas por prefijo y por rango, y los conteos se guardan en una
+ * {@link TablaPalabras}.</p>
+ */
+public class Indice {
+
+    /* El archivo indexado. */
+    private String archivo;
+    /* Las palabras en orden alfabético. */
+    private ArbolCongelado<String> arbol;
+    /* Los conteos de las palabras. */
+    private TablaPalabras tabla;
+    /* Los identificadores de las palabras ordenados por conteo descendente. */
+    private int[] porConteo;
+
+    /* Construye el índice de un archivo, sin las palabras que rechaza el
+       filtro si no es null. */
+    private Indice(String archivo, FiltroPalabras filtro) throws IOException {
+	this.archivo = archivo;
+	ArbolRojinegro<String> arbol = new ArbolRojinegro<String>();
+	tabla = new TablaPalabras();
+	Tokenizador tokenizador = new Tokenizador();
+	BufferedReader lectura = new BufferedReader(new FileReader(archivo));
+	String linea;
+	while((linea = lectura.readLine()) != null)
+	    tokenizador.analiza(linea, (buffer, longitud) -> {
+		    if(filtro != null && filtro.rechaza(buffer, longitud))
+			return;
+		    int id = tabla.incrementa(buffer, longitud);
+		    if(tabla.conteo(id) == 1)
+			arbol.agrega(tabla.palabra(id));
+		});
+	lectura.close();
+	this.arbol = arbol.congela(ArbolCongelado.PREFIJO_CADENA);
+	ordenaPorConteo();
+    }
+
+    /**
+     * Construye el índice de un archivo.
+     * @param archivo el nombre del archivo a indexar.
+     * @return el índice del archivo.
+     * @throws IOException si ocurre un error al leer el archivo.
+     */
+    public static Indice construye(String archivo) throws IOException {
+	return new Indice(archivo, null);
+    }
+
+    /**
+     * Construye el índice de un archivo sin las palabras que rechaza un
+     * filtro.
+     * @param archivo el nombre del archivo a indexar.
+     * @param filtro el filtro de palabras, o <code>null</code>.
+     * @return el índice del archivo.
+     * @throws IOException si ocurre un error al leer el archivo.
+     */
+    public static Indice construye(String archivo, FiltroPalabras filtro) throws IOException {
+	return new Indice(archivo, filtro);
+    }
+
+    /* Ordena los identificadores por conteo descendente, desempatando
+       alfabéticamente. Los conteos y los identificadores se empacan en un
+       long para ordenar primitivos. */
+    private void ordenaPorConteo() {
+	int n = tabla.getElementos();
+	long[] llaves = new long[n];
+	for(int id = 0; id < n; id++)
+	    llaves[id] = ((long)tabla.conteo(id) << 32) | id;
+	Arrays.sort(llaves);
+	porConteo = new int[n];
+	for(int i = 0; i < n; i++)
+	    porConteo[i] = (int)llaves[n - 1 - i];
+	int i = 0;
+	while(i < n){
+	    int j = i + 1;
+	    while(j < n && tabla.conteo(porConteo[j]) == tabla.conteo(porConteo[i]))
+		j++;
+	    ordenaAlfabeticamente(i, j);
+	    i = j;
+	}
+    }
+
+    /* Ordena alfabéticamente los identificadores de porConteo en [i, j). */
+    private void ordenaAlfabeticamente(int i, int j) {
+	if(j - i < 2)
+	    return;
+	String[] palabras = new String[j - i];
+	for(int k = i; k < j; k++)
+	    palabras[k - i] = tabla.palabra(porConteo[k]);
+	Arrays.sort(palabras);
+	for(int k = i; k < j; k++)
+	    porConteo[k] = tabla.busca(palabras[k - i]);
+    }
+
+    /**
+     * Regresa el nombre del archivo indexado.
+     * @return el nombre del archivo indexado.
+     */
+    public String getArchivo() {
+	return archivo;
+    }
+
+    /**
+     * Regresa el número de palabras distintas del índice.
+     * @return el número de palabras distintas del índice.
+     */
+    public int getElementos() {
+	return tabla.getElementos();
+    }
+
+    /**
+     * Regresa el número de apariciones de una palabra.
+     * @param palabra la palabra.
+     * @return el número de apariciones de la palabra, o 0 si no aparece.
+     */
+    public int conteo(String palabra) {
+	return tabla.conteo(palabra);
+    }
+
+    /**
+     * Escribe en orden alfabético las palabras en el rango
+     * [<code>desde</code>, <code>hasta</code>] con su número de apariciones,
+     * una por línea.
+     * @param desde la primera palabra del rango.
+     * @param hasta la última palabra del rango, o <code>null</code> si el
+     *        rango no tiene límite superior.
+     * @param limite el número máximo de palabras a escribir.
+     * @param salida donde se escriben las palabras.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void rango(String desde, String hasta, int limite, Appendable salida)
+	throws IOException {
+	Iterator<String> iterador = arbol.iterador(desde);
+	for(int i = 0; i < limite && iterador.hasNext(); i++){
+	    String palabra = iterador.next();
+	    if(hasta != null && palabra.compareTo(hasta) > 0)
+		break;
+	    salida.append(palabra).append(": ")
+		.append(String.valueOf(tabla.conteo(palabra))).append('\n');
+	}
+    }
+
+    /**
+     * Escribe en orden alfabético las palabras que empiezan con un prefijo con
+     * su número de apariciones, una por línea.
+     * @param prefijo el prefijo.
+     * @param limite el número máximo de palabras a escribir.
+     * @param salida donde se escriben las palabras.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void prefijo(String prefijo, int limite, Appendable salida)
+	throws IOException {
+	rango(prefijo, prefijo + Character.MAX_VALUE, limite, salida);
+    }
+
+    /**
+     * Escribe las <code>k</code> palabras con más apariciones, de la más a la
+     * menos frecuente, con su número de apariciones, una por línea.
+     * @param k el número de palabras a escribir.
+     * @param salida donde se escriben las palabras.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public void top(int k, Appendable salida) throws IOException {
+	for(int i = 0; i < k && i < porConteo.length; i++)
+	    salida.append(tabla.palabra(porConteo[i])).append(": ")
+		.append(String.valueOf(tabla.conteo(porConteo[i]))).append('\n');
+    }
+}
@@ -0,0 +1,174 @@
+package mx.ciencias.lectorQuijote;
+
+import mx.ciencias.TablaPalabras;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <p>Clase para índices binarios ordenados de apariciones de palabras.</p>
+ *
+ * <p>El archivo tiene un encabezado (el número mágico <code>LQIX</code>, la
+ * versión y el número de palabras), una tabla con el desplazamiento de cada
+ * entrada y las entradas en orden: el conteo como <code>int</code>, la
+ * longitud en bytes de la palabra como <code>short</code> sin signo y la
+ * palabra en UTF-8. Todos los enteros son <em>big-endian</em>. Las entradas
+ * están ordenadas por sus bytes sin signo, que para UTF-8 es el orden de los
+ * puntos de código.</p>
+ *
+ * <p>Para consultar, el archivo se mapea a memoria y se hace búsqueda binaria
+ * sobre la tabla de desplazamientos comparando bytes directamente en el mapa;
+ * abrir el índice no lee nada al heap, y varios procesos que lo consultan
+ * comparten las mismas páginas del caché del sistema.</p>
+ */
+public class IndiceBinario {
+
+    /* El número mágico del formato. */
+    private static final int MAGICO = 0x4C514958;
+    /* La versión del formato. */
+    private static final int VERSION = 1;
+    /* El tamaño del encabezado en bytes. */
+    private static final int ENCABEZADO = 12;
+
+    /* El archivo mapeado. */
+    private MappedByteBuffer mapa;
+    /* El número de palabras del índice. */
+    private int elementos;
+
+    /* Construye un índice sobre un archivo mapeado. */
+    private IndiceBinario(MappedByteBuffer mapa) throws IOException {
+	if(mapa.capacity() < ENCABEZADO || mapa.getInt(0) != MAGICO ||
+	   mapa.getInt(4) != VERSION)
+	    throw new IOException("El archivo no es un índice binario.");
+	this.mapa = mapa;
+	elementos = mapa.getInt(8);
+    }
+
+    /**
+     * Abre un índice binario mapeando el archivo a memoria.
+     * @param archivo el nombre del archivo del índice.
+     * @return el índice abierto.
+     * @throws IOException si el archivo no se puede leer o no es un índice.
+     */
+    public static IndiceBinario abre(String archivo) throws IOException {
+	try(FileChannel canal = FileChannel.open(Paths.get(archivo),
+						  StandardOpenOption.READ)){
+	    return new IndiceBinario(canal.map(FileChannel.MapMode.READ_ONLY,
+					       0, canal.size()));
+	}
+    }
+
+    /**
+     * Escribe un índice binario con las palabras recibidas y sus conteos en
+     * la tabla. Las palabras pueden venir en cualquier orden; si vienen del
+     * recorrido in-order de un árbol ordenado alfabéticamente no se vuelven a
+     * ordenar.
+     * @param archivo el nombre del archivo donde se escribe el índice.
+     * @param palabras las palabras a escribir, sin repeticiones.
+     * @param tabla la tabla con los conteos de las palabras.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public static void escribe(String archivo, Iterable<?> palabras,
+			       TablaPalabras tabla) throws IOException {
+	byte[][] bytes = new byte[tabla.getElementos()][];
+	int[] conteos = new int[bytes.length];
+	int n = 0;
+	boolean ordenadas = true;
+	for(Object palabra: palabras){
+	    String s = palabra.toString();
+	    bytes[n] = s.getBytes(StandardCharsets.UTF_8);
+	    if(bytes[n].length > 0xffff)
+		throw new IOException("Palabra demasiado larga: " + s);
+	    conteos[n] = tabla.conteo(s);
+	    if(n > 0 && Arrays.compareUnsigned(bytes[n - 1], bytes[n]) > 0)
+		ordenadas = false;
+	    n++;
+	}
+	if(!ordenadas)
+	    ordena(bytes, conteos, n);
+	DataOutputStream salida =
+	    new DataOutputStream(new BufferedOutputStream(new FileOutputStream(archivo)));
+	salida.writeInt(MAGICO);
+	salida.writeInt(VERSION);
+	salida.writeInt(n);
+	long desplazamiento = ENCABEZADO + 4L * n;
+	for(int i = 0; i < n; i++){
+	    if(desplazamiento > Integer.MAX_VALUE)
+		throw new IOException("Índice demasiado grande.");
+	    salida.writeInt((int)desplazamiento);
+	    desplazamiento += 6 + bytes[i].length;
+	}
+	for(int i = 0; i < n; i++){
+	    salida.writeInt(conteos[i]);
+	    salida.writeShort(bytes[i].length);
+	    salida.write(bytes[i]);
+	}
+	salida.close();
+    }
+
+    /* Ordena las palabras por sus bytes, junto con sus conteos. */
+    private static void ordena(byte[][] bytes, int[] conteos, int n) {
+	Integer[] indices = new Integer[n];
+	for(int i = 0; i < n; i++)
+	    indices[i] = i;
+	Arrays.sort(indices, (a, b) -> Arrays.compareUnsigned(bytes[a], bytes[b]));
+	byte[][] b = bytes.clone();
+	int[] c = conteos.clone();
+	for(int i = 0; i < n; i++){
+	    bytes[i] = b[indices[i]];
+	    conteos[i] = c[indices[i]];
+	}
+    }
+
+    /**
+     * Regresa el número de palabras del índice.
+     * @return el número de palabras del índice.
+     */
+    public int getElementos() {
+	return elementos;
+    }
+
+    /**
+     * Regresa el número de apariciones de una palabra, buscándola en el
+     * archivo mapeado.
+     * @param palabra la palabra a buscar.
+     * @return el número de apariciones de la palabra, o 0 si no aparece.
+     */
+    public int conteo(String palabra) {
+	byte[] buscada = palabra.getBytes(StandardCharsets.UTF_8);
+	int a = 0, b = elementos - 1;
+	while(a <= b){
+	    int m = (a + b) >>> 1;
+	    int entrada = mapa.getInt(ENCABEZADO + 4 * m);
+	    int c = compara(entrada, buscada);
+	    if(c == 0)
+		return mapa.getInt(entrada);
+	    if(c < 0)
+		a = m + 1;
+	    else
+		b = m - 1;
+	}
+	return 0;
+    }
+
+    /* Compara la palabra de la entrada con los bytes buscados, sin
+       copiarla. */
+    private int compara(int entrada, byte[] buscada) {
+	int longitud = mapa.getShort(entrada + 4) & 0xffff;
+	int inicio = entrada + 6;
+	int n = Math.min(longitud, buscada.length);
+	for(int i = 0; i < n; i++){
+	    int c = (mapa.get(inicio + i) & 0xff) - (buscada[i] & 0xff);
+	    if(c != 0)
+		return c;
+	}
+	return longitud - buscada.length;
+    }
+}
@@ -0,0 +1,260 @@
+package mx.ciencias.lectorQuijote;
+
+import mx.ciencias.TablaPalabras;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <p>Clase para índices posicionales: dónde aparece cada palabra del
+ * texto.</p>
+ *
+ * <p>El índice es un {@link Agregador}, así que se llena en la misma lectura
+ * que cuenta las palabras. Para cada palabra, identificada por su
+ * identificador en el diccionario, guarda la lista de sus apariciones: la
+ * posición de la palabra en el texto (cuántas palabras contadas hay antes) y
+ * el desplazamiento en bytes de la palabra en el archivo. Las listas se
+ * guardan como diferencias con la aparición anterior, codificadas en enteros
+ * de longitud variable (7 bits por byte) en un arreglo de bytes por palabra
+ * que crece al doble cuando se llena; la mayoría de las diferencias caben en
+ * uno o dos bytes.</p>
+ *
+ * <p>Las concordancias (cada aparición con el texto que la rodea) se leen
+ * directamente del archivo mapeado a memoria, sin volver a leer el texto.
+ * Los desplazamientos son exactos para archivos leídos en UTF-8 o en una
+ * codificación de un byte por carácter.</p>
+ */
+public class IndicePosicional implements Agregador {
+
+    /* El archivo mapeado. */
+    private MappedByteBuffer mapa;
+    /* La codificación del archivo. */
+    private Charset codificacion;
+    /* Si la codificación es UTF-8. */
+    private boolean utf8;
+    /* El tokenizador que separa las palabras. */
+    private Tokenizador tokenizador;
+    /* El diccionario de las palabras. */
+    private TablaPalabras diccionario;
+
+    /* Las apariciones codificadas de cada palabra. */
+    private byte[][] datos;
+    /* Los bytes usados de cada arreglo de apariciones. */
+    private int[] usados;
+    /* La última posición de cada palabra. */
+    private int[] ultimaPosicion;
+    /* El último desplazamiento de cada palabra. */
+    private int[] ultimoDesplazamiento;
+
+    /* El número de palabras leídas. */
+    private int posicion;
+    /* La línea actual. */
+    private String linea;
+    /* El desplazamiento del inicio de la línea actual. */
+    private int inicioLinea;
+    /* El desplazamiento del inicio de la siguiente línea. */
+    private int siguienteLinea;
+    /* El carácter de la línea actual hasta donde se han contado bytes. */
+    private int columna;
+    /* Los bytes desde el inicio de la línea hasta la columna. */
+    private int bytesColumna;
+
+    /**
+     * Construye un índice posicional vacío para un archivo.
+     * @param archivo el archivo que se va a leer.
+     * @param codificacion la codificación con la que se lee el archivo.
+     * @param tokenizador el tokenizador que separa las palabras.
+     * @param diccionario el diccionario que asigna los identificadores.
+     * @throws IOException si el archivo no se puede mapear.
+     */
+    public IndicePosicional(String archivo, Charset codificacion,
+			    Tokenizador tokenizador, TablaPalabras diccionario)
+	throws IOException {
+	try(FileChannel canal = FileChannel.open(Paths.get(archivo),
+						  StandardOpenOption.READ)){
+	    mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+	}
+	this.codificacion = codificacion;
+	utf8 = codificacion.equals(StandardCharsets.UTF_8);
+	this.tokenizador = tokenizador;
+	this.diccionario = diccionario;
+	datos = new byte[1024][];
+	usados = new int[1024];
+	ultimaPosicion = new int[1024];
+	ultimoDesplazamiento = new int[1024];
+    }
+
+    /* Busca en el mapa el fin de la línea actual, con las mismas reglas que
+       BufferedReader.readLine: \n, \r o \r\n. */
+    @Override public void linea(String linea) {
+	this.linea = linea;
+	inicioLinea = siguienteLinea;
+	columna = 0;
+	bytesColumna = 0;
+	int i = inicioLinea, n = mapa.limit();
+	while(i < n && mapa.get(i) != '\n' && mapa.get(i) != '\r')
+	    i++;
+	if(i < n && mapa.get(i) == '\r' && i + 1 < n && mapa.get(i + 1) == '\n')
+	    i++;
+	siguienteLinea = Math.min(i + 1, n);
+    }
+
+    @Override public void token(char[] buffer, int longitud, int id, int conteo) {
+	int inicio = Math.min(tokenizador.getInicio(), linea.length());
+	while(columna < inicio)
+	    bytesColumna += bytes(linea.charAt(columna++));
+	int desplazamiento = inicioLinea + bytesColumna;
+	if(id >= datos.length)
+	    crece(id);
+	if(datos[id] == null)
+	    datos[id] = new byte[4];
+	escribe(id, posicion - ultimaPosicion[id]);
+	escribe(id, desplazamiento - ultimoDesplazamiento[id]);
+	ultimaPosicion[id] = posicion++;
+	ultimoDesplazamiento[id] = desplazamiento;
+    }
+
+    /* Regresa el número de bytes de un carácter en el archivo. */
+    private int bytes(char c) {
+	if(!utf8 || c < 0x80)
+	    return 1;
+	if(c < 0x800)
+	    return 2;
+	if(Character.isHighSurrogate(c))
+	    return 4;
+	return Character.isLowSurrogate(c) ? 0 : 3;
+    }
+
+    /* Agranda los arreglos por palabra para que quepa el identificador. */
+    private void crece(int id) {
+	int n = Math.max(2 * datos.length, id + 1);
+	datos = Arrays.copyOf(datos, n);
+	usados = Arrays.copyOf(usados, n);
+	ultimaPosicion = Arrays.copyOf(ultimaPosicion, n);
+	ultimoDesplazamiento = Arrays.copyOf(ultimoDesplazamiento, n);
+    }
+
+    /* Agrega un entero no negativo a las apariciones de la palabra, siete
+       bits por byte con el bit alto indicando que siguen más. */
+    private void escribe(int id, int valor) {
+	byte[] d = datos[id];
+	int u = usados[id];
+	if(u + 5 > d.length)
+	    d = datos[id] = Arrays.copyOf(d, 2 * d.length + 5);
+	while((valor & ~0x7F) != 0){
+	    d[u++] = (byte)((valor & 0x7F) | 0x80);
+	    valor >>>= 7;
+	}
+	d[u++] = (byte)valor;
+	usados[id] = u;
+    }
+
+    /**
+     * Regresa el número de apariciones registradas de una palabra.
+     * @param palabra la palabra, en minúsculas.
+     * @return el número de apariciones de la palabra, o 0 si no aparece.
+     */
+    public int apariciones(String palabra) {
+	int id = diccionario.busca(palabra);
+	if(id < 0 || id >= datos.length || datos[id] == null)
+	    return 0;
+	int n = 0;
+	byte[] d = datos[id];
+	for(int i = 0; i < usados[id]; i++)
+	    if(d[i] >= 0)
+		n++;
+	return n / 2;
+    }
+
+    /**
+     * Escribe las primeras apariciones de una palabra con el texto que las
+     * rodea, una por línea: la posición de la palabra en el texto, su
+     * desplazamiento en bytes y el contexto, con la palabra entre corchetes.
+     * @param palabra la palabra, en minúsculas.
+     * @param limite el número máximo de apariciones a escribir.
+     * @param contexto el número de bytes de contexto a cada lado.
+     * @param salida dónde escribir las apariciones.
+     * @return el número de apariciones escritas.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public int concordancias(String palabra, int limite, int contexto,
+			     Appendable salida) throws IOException {
+	int id = diccionario.busca(palabra);
+	if(id < 0 || id >= datos.length || datos[id] == null)
+	    return 0;
+	byte[] d = datos[id];
+	int[] i = { 0 };
+	int p = 0, desplazamiento = 0, escritas = 0;
+	while(i[0] < usados[id] && escritas < limite){
+	    p += lee(d, i);
+	    desplazamiento += lee(d, i);
+	    int fin = finPalabra(desplazamiento, palabra.length());
+	    salida.append(p + "\t" + desplazamiento + "\t" +
+			  texto(Math.max(0, desplazamiento - contexto), desplazamiento) +
+			  "[" + texto(desplazamiento, fin) + "]" +
+			  texto(fin, Math.min(fin + contexto, mapa.limit())) + "\n");
+	    escritas++;
+	}
+	return escritas;
+    }
+
+    /* Regresa el desplazamiento del fin de la palabra que empieza en el
+       desplazamiento recibido y tiene alrededor de longitud caracteres. */
+    private int finPalabra(int desplazamiento, int longitud) {
+	String texto = texto(desplazamiento, Math.min(desplazamiento + 4 * longitud + 8,
+						      mapa.limit()));
+	int fin = desplazamiento;
+	for(int i = 0; i < texto.length(); i++){
+	    char c = texto.charAt(i);
+	    if(!Character.isLetterOrDigit(c) && c != '_' &&
+	       Character.getType(c) != Character.NON_SPACING_MARK)
+		break;
+	    fin += bytes(c);
+	}
+	return fin;
+    }
+
+    /* Lee un entero de longitud variable en la posición i[0] y la avanza. */
+    private static int lee(byte[] d, int[] i) {
+	int valor = 0, corrimiento = 0;
+	byte b;
+	do{
+	    b = d[i[0]++];
+	    valor |= (b & 0x7F) << corrimiento;
+	    corrimiento += 7;
+	} while(b < 0);
+	return valor;
+    }
+
+    /* Decodifica los bytes del archivo entre inicio y fin, recorriendo el
+       inicio al principio de un carácter UTF-8 y cambiando los fines de
+       línea por espacios. */
+    private String texto(int inicio, int fin) {
+	while(utf8 && inicio < fin && (mapa.get(inicio) & 0xC0) == 0x80)
+	    inicio++;
+	byte[] bytes = new byte[fin - inicio];
+	for(int j = 0; j < bytes.length; j++){
+	    byte b = mapa.get(inicio + j);
+	    bytes[j] = b == '\n' || b == '\r' || b == '\t' ? (byte)' ' : b;
+	}
+	return new String(bytes, codificacion);
+    }
+
+    /**
+     * Escribe el número de apariciones indexadas y los bytes que ocupan sus
+     * listas; las apariciones se consultan con {@link #concordancias}.
+     * @param salida dónde escribir el resumen.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    @Override public void escribe(Appendable salida) throws IOException {
+	long bytes = 0;
+	for(int id = 0; id < datos.length; id++)
+	    bytes += usados[id];
+	salida.append("Apariciones indexadas: " + posicion + " en " + bytes + " bytes\n");
+    }
+}
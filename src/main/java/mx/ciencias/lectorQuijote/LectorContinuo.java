@@ -0,0 +1,117 @@
+package mx.ciencias.lectorQuijote;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Clase para leer por líneas una entrada que puede no terminar, como la
+ * entrada estándar o un archivo que sigue creciendo.</p>
+ *
+ * <p>Un hilo aparte lee la entrada y deja las líneas completas en una cola;
+ * quien consume puede esperar la siguiente línea con un tiempo límite, así
+ * que puede hacer otras cosas (como publicar resultados) mientras no llegan
+ * datos. Si se sigue la entrada, al llegar al final el hilo espera y vuelve a
+ * leer en lugar de terminar, y una línea sin fin de línea no se entrega hasta
+ * que se complete.</p>
+ */
+public class LectorContinuo {
+
+    /* Marca del fin de la entrada en la cola. */
+    private static final String FIN = new String("");
+    /* Los milisegundos que se espera antes de volver a leer al final. */
+    private static final long ESPERA = 200;
+
+    /* Las líneas leídas. */
+    private BlockingQueue<String> lineas;
+    /* El error de lectura, o null. */
+    private volatile IOException error;
+    /* Si ya se entregó el fin de la entrada. */
+    private boolean terminado;
+
+    /**
+     * Construye un lector y empieza a leer.
+     * @param entrada la entrada.
+     * @param seguir si al llegar al final se espera a que la entrada crezca;
+     *        sólo tiene sentido para archivos regulares, porque una entrada
+     *        cerrada (como la entrada estándar) nunca vuelve a crecer.
+     */
+    public LectorContinuo(Reader entrada, boolean seguir) {
+	lineas = new ArrayBlockingQueue<String>(4096);
+	Thread hilo = new Thread(() -> lee(entrada, seguir), "LectorContinuo");
+	hilo.setDaemon(true);
+	hilo.start();
+    }
+
+    /* Lee la entrada y mete las líneas completas a la cola. */
+    private void lee(Reader entrada, boolean seguir) {
+	char[] buffer = new char[8192];
+	StringBuilder linea = new StringBuilder();
+	try{
+	    while(true){
+		int n = entrada.read(buffer);
+		if(n < 0){
+		    if(!seguir)
+			break;
+		    Thread.sleep(ESPERA);
+		    continue;
+		}
+		for(int i = 0; i < n; i++){
+		    if(buffer[i] != '\n'){
+			linea.append(buffer[i]);
+			continue;
+		    }
+		    int l = linea.length();
+		    if(l > 0 && linea.charAt(l - 1) == '\r')
+			linea.setLength(l - 1);
+		    lineas.put(linea.toString());
+		    linea.setLength(0);
+		}
+	    }
+	    if(linea.length() > 0)
+		lineas.put(linea.toString());
+	    entrada.close();
+	} catch(IOException e){
+	    error = e;
+	} catch(InterruptedException e){
+	    Thread.currentThread().interrupt();
+	}
+	try{
+	    lineas.put(FIN);
+	} catch(InterruptedException e){
+	    Thread.currentThread().interrupt();
+	}
+    }
+
+    /**
+     * Regresa la siguiente línea, esperando a lo más el tiempo recibido.
+     * @param milisegundos el tiempo máximo de espera.
+     * @return la siguiente línea, o <code>null</code> si no llegó ninguna en
+     *         ese tiempo o si la entrada terminó.
+     * @throws IOException si ocurrió un error al leer la entrada.
+     * @throws InterruptedException si se interrumpe la espera.
+     */
+    public String siguiente(long milisegundos) throws IOException, InterruptedException {
+	if(terminado)
+	    return null;
+	String linea = lineas.poll(Math.max(0, milisegundos), TimeUnit.MILLISECONDS);
+	if(linea == FIN){
+	    terminado = true;
+	    if(error != null)
+		throw error;
+	    return null;
+	}
+	return linea;
+    }
+
+    /**
+     * Nos dice si la entrada terminó y ya se entregaron todas sus líneas.
+     * @return <code>true</code> si la entrada terminó, <code>false</code> en
+     *         otro caso.
+     */
+    public boolean terminado() {
+	return terminado;
+    }
+}
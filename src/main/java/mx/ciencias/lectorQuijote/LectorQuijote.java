@@ -1,73 +1,689 @@
 package mx.ciencias.lectorQuijote;
-import java.util.HashMap;
 import mx.ciencias.ArbolRojinegro;
 import mx.ciencias.*;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.PatternSyntaxException;
 
 public class LectorQuijote{
 
+    /* Arreglo vacío para leer sin estadísticas. */
+    private static final Agregador[] SIN_AGREGADORES = new Agregador[0];
+    /* Los bytes de contexto a cada lado de una concordancia. */
+    private static final int CONTEXTO = 40;
+
     public static void main(String args[]){
-	if(args.length == 0){
+	if(args.length > 0 && args[0].equals("consulta")){
+	    consulta(args);
+	    return;
+	}
+	if(args.length > 0 && args[0].equals("compara")){
+	    compara(args);
+	    return;
+	}
+	String archivo = null;
+	String indice = null;
+	int ngrama = 1;
+	String idioma = null;
+	int puerto = -1;
+	String directorio = null;
+	String vacias = null;
+	int longitudMinima = 0;
+	int minimo = 1;
+	boolean estadisticas = false;
+	String secciones = null;
+	List<String> concordancias = new ArrayList<String>();
+	List<String> frecuencias = new ArrayList<String>();
+	int limite = 10;
+	boolean aproximado = false;
+	double errorDistintas = 0.01;
+	double errorFrecuencias = 0.0001;
+	int top = 0;
+	boolean continuo = false;
+	boolean seguir = false;
+	double intervalo = 5;
+	long cada = 0;
+	String formato = "texto";
+	String cache = null;
+	long cacheMaximo = 256;
+	String motor = "rojinegro";
+	for(int i = 0; i < args.length; i++){
+	    if(args[i].equals("--ngram") && i + 1 < args.length){
+		try{
+		    ngrama = Integer.parseInt(args[++i]);
+		} catch(NumberFormatException e){
+		    ngrama = 0;
+		}
+	    } else if(args[i].equals("--orden") && i + 1 < args.length)
+		idioma = args[++i];
+	    else if(args[i].equals("--indice") && i + 1 < args.length)
+		indice = args[++i];
+	    else if(args[i].equals("--servidor") && i + 1 < args.length){
+		try{
+		    puerto = Integer.parseInt(args[++i]);
+		} catch(NumberFormatException e){
+		    puerto = -2;
+		}
+	    }
+	    else if(args[i].equals("--directorio") && i + 1 < args.length)
+		directorio = args[++i];
+	    else if(args[i].equals("--secciones") && i + 1 < args.length)
+		secciones = args[++i];
+	    else if(args[i].equals("--concordancia") && i + 1 < args.length)
+		concordancias.add(args[++i].toLowerCase());
+	    else if(args[i].equals("--limite") && i + 1 < args.length){
+		try{
+		    limite = Integer.parseInt(args[++i]);
+		} catch(NumberFormatException e){
+		    limite = -1;
+		}
+	    }
+	    else if(args[i].equals("--aproximado"))
+		aproximado = true;
+	    else if(args[i].equals("--error-distintas") && i + 1 < args.length){
+		try{
+		    errorDistintas = Double.parseDouble(args[++i]);
+		} catch(NumberFormatException e){
+		    errorDistintas = -1;
+		}
+	    } else if(args[i].equals("--error-frecuencias") && i + 1 < args.length){
+		try{
+		    errorFrecuencias = Double.parseDouble(args[++i]);
+		} catch(NumberFormatException e){
+		    errorFrecuencias = -1;
+		}
+	    }
+	    else if(args[i].equals("--top") && i + 1 < args.length){
+		try{
+		    top = Integer.parseInt(args[++i]);
+		} catch(NumberFormatException e){
+		    top = -1;
+		}
+		aproximado = true;
+	    }
+	    else if(args[i].equals("--seguir")){
+		seguir = true;
+		continuo = true;
+	    } else if(args[i].equals("--intervalo") && i + 1 < args.length){
+		try{
+		    intervalo = Double.parseDouble(args[++i]);
+		} catch(NumberFormatException e){
+		    intervalo = -1;
+		}
+		continuo = true;
+	    } else if(args[i].equals("--cada") && i + 1 < args.length){
+		try{
+		    cada = Long.parseLong(args[++i]);
+		} catch(NumberFormatException e){
+		    cada = -1;
+		}
+		continuo = true;
+	    }
+	    else if(args[i].equals("--formato") && i + 1 < args.length)
+		formato = args[++i];
+	    else if(args[i].equals("--motor") && i + 1 < args.length)
+		motor = args[++i];
+	    else if(args[i].equals("--cache") && i + 1 < args.length)
+		cache = args[++i];
+	    else if(args[i].equals("--cache-maximo") && i + 1 < args.length){
+		try{
+		    cacheMaximo = Long.parseLong(args[++i]);
+		} catch(NumberFormatException e){
+		    cacheMaximo = -1;
+		}
+	    }
+	    else if(args[i].equals("--frecuencia") && i + 1 < args.length)
+		frecuencias.add(args[++i].toLowerCase());
+	    else if(args[i].equals("--estadisticas"))
+		estadisticas = true;
+	    else if(args[i].equals("--vacias") && i + 1 < args.length)
+		vacias = args[++i];
+	    else if(args[i].equals("--longitud-minima") && i + 1 < args.length){
+		try{
+		    longitudMinima = Integer.parseInt(args[++i]);
+		} catch(NumberFormatException e){
+		    longitudMinima = -1;
+		}
+	    } else if(args[i].equals("--minimo-apariciones") && i + 1 < args.length){
+		try{
+		    minimo = Integer.parseInt(args[++i]);
+		} catch(NumberFormatException e){
+		    minimo = 0;
+		}
+	    }
+	    else
+		archivo = args[i];
+	}
+	if(archivo == null){
 	    System.out.println("Introduzca un archivo a leer");
 	    System.exit(0);
 	}
+	if(seguir && archivo.equals("-")){
+	    System.out.println("--seguir sólo se puede usar con un archivo, no con la entrada estándar");
+	    System.exit(1);
+	}
+	if(ngrama < 1 || ngrama > 3){
+	    System.out.println("El tamaño de los n-gramas debe ser 1, 2 o 3");
+	    System.exit(1);
+	}
+	if(puerto < -1 || puerto > 65535){
+	    System.out.println("El puerto debe estar entre 0 y 65535");
+	    System.exit(1);
+	}
+	if(directorio != null && puerto < 0){
+	    System.out.println("--directorio sólo se puede usar con --servidor");
+	    System.exit(1);
+	}
+	FormatoSalida formatoSalida = null;
+	try{
+	    formatoSalida = FormatoSalida.valueOf(formato.toUpperCase());
+	} catch(IllegalArgumentException e){
+	    System.out.println("El formato debe ser texto, csv, json o binario");
+	    System.exit(1);
+	}
+	if(!(intervalo > 0) || cada < 0){
+	    System.out.println("El intervalo debe ser positivo y el número de palabras por instantánea al menos 0");
+	    System.exit(1);
+	}
+	if(top < 0 || top > ContadorAproximado.MAXIMO_TOP){
+	    System.out.println("El número de palabras más frecuentes debe estar entre 0 y " +
+			       ContadorAproximado.MAXIMO_TOP);
+	    System.exit(1);
+	}
+	if(!frecuencias.isEmpty() && !aproximado){
+	    System.out.println("--frecuencia sólo se puede usar con --aproximado o --top");
+	    System.exit(1);
+	}
+	if(limite < 0){
+	    System.out.println("El límite de concordancias debe ser al menos 0");
+	    System.exit(1);
+	}
+	if(!motor.equals("rojinegro") && !motor.equals("arbolb") && !motor.equals("splay")){
+	    System.out.println("El motor debe ser rojinegro, arbolb o splay");
+	    System.exit(1);
+	}
+	if(cacheMaximo < 0){
+	    System.out.println("El tamaño máximo de la caché debe ser al menos 0");
+	    System.exit(1);
+	}
+	if(longitudMinima < 0 || minimo < 1){
+	    System.out.println("La longitud mínima debe ser al menos 0 y el mínimo de apariciones al menos 1");
+	    System.exit(1);
+	}
+	FiltroPalabras filtro = null;
+	if(vacias != null || longitudMinima > 0){
+	    try{
+		String[] lista = vacias == null ? new String[0] : FiltroPalabras.leeVacias(vacias);
+		if((idioma == null || puerto >= 0 || ngrama > 1) && !FiltroPalabras.soloAscii(lista))
+		    System.out.println("Aviso: sin --orden el texto se separa sólo con letras ASCII, " +
+				       "así que las palabras vacías con acentos no se descartan");
+		filtro = new FiltroPalabras(lista, longitudMinima);
+	    } catch(IOException e){
+		e.printStackTrace();
+		System.exit(1);
+	    }
+	}
+	Agregador[] agregadores = SIN_AGREGADORES;
+	if(estadisticas)
+	    agregadores = new Agregador[]{ new ConteoTokens(), new ConteoHapax(),
+					   new HistogramaLongitudes(),
+					   new DistribucionLetras() };
+	ContadorSecciones contadorSecciones = null;
+	if(secciones != null){
+	    try{
+		contadorSecciones = new ContadorSecciones(secciones);
+	    } catch(PatternSyntaxException e){
+		System.out.println("Patrón de secciones inválido: " + e.getDescription());
+		System.exit(1);
+	    }
+	}
+	if(puerto >= 0){
+	    sirve(archivo, puerto, filtro, directorio);
+	    return;
+	}
+	if(ngrama > 1){
+	    cuentaNGramas(archivo, ngrama, filtro);
+	    return;
+	}
+	long milisegundos = (long)Math.ceil(intervalo * 1000);
+	if(aproximado){
+	    cuentaAproximado(archivo, idioma != null, errorDistintas, errorFrecuencias, filtro,
+			     frecuencias, top, seguir, milisegundos, cada);
+	    return;
+	}
+	if(continuo){
+	    if(idioma != null){
+		Colacion colacion = new Colacion(idioma);
+		cuentaContinuo(archivo, colacion::colada, true, motor, filtro, minimo, formatoSalida,
+			       seguir, milisegundos, cada);
+	    } else
+		cuentaContinuo(archivo, palabra -> palabra, false, motor, filtro, minimo, formatoSalida,
+			       seguir, milisegundos, cada);
+	    return;
+	}
+	/* La caché sólo guarda Resultado; si se piden más archivos hay que leer
+	   el texto de todos modos. */
+	CacheResultados cacheResultados = null;
+	long huella = 0;
+	String resultado = "Resultado." + formatoSalida.getExtension();
+	if(cache != null && !archivo.equals("-") && indice == null && !estadisticas &&
+	   secciones == null && concordancias.isEmpty()){
+	    try{
+		String ajustes = CacheResultados.VERSION + "|" + idioma + "|" + vacias + "|" +
+		    longitudMinima + "|" + minimo + "|" + formatoSalida + "|" +
+		    Charset.defaultCharset();
+		if(vacias != null && !vacias.equals("es"))
+		    ajustes += "|" + CacheResultados.huella(vacias, "");
+		cacheResultados = new CacheResultados(cache, cacheMaximo << 20);
+		huella = CacheResultados.huella(archivo, ajustes);
+		if(cacheResultados.recupera(huella, resultado)){
+		    System.out.println("Lista recuperada de la caché en " + resultado);
+		    return;
+		}
+	    } catch(IOException e){
+		e.printStackTrace();
+		System.exit(1);
+	    }
+	}
+	if(idioma != null){
+	    Colacion colacion = new Colacion(idioma);
+	    cuentaPalabras(archivo, colacion::colada, true, motor, indice, filtro, minimo, agregadores,
+			   contadorSecciones, concordancias, limite, formatoSalida);
+	} else
+	    cuentaPalabras(archivo, palabra -> palabra, false, motor, indice, filtro, minimo, agregadores,
+			   contadorSecciones, concordancias, limite, formatoSalida);
+	if(cacheResultados != null){
+	    try{
+		cacheResultados.guarda(huella, resultado);
+	    } catch(IOException e){
+		e.printStackTrace();
+		System.exit(1);
+	    }
+	}
+    }
 
-	ArbolRojinegro arbol= new ArbolRojinegro();
-	HashMap <String, Integer> diccionario= new HashMap<String,Integer>();
+    /* Busca las palabras en un índice binario: consulta INDICE PALABRA… */
+    private static void consulta(String args[]){
+	if(args.length < 3){
+	    System.out.println("Uso: consulta <índice> <palabra>...");
+	    System.exit(1);
+	}
 	try{
-	BufferedReader lectura = new BufferedReader(new FileReader(args[0]));
-	String linea="";
-	while((linea=lectura.readLine()) != null){
-	    analizaLinea(linea,arbol,diccionario);
+	    IndiceBinario indice = IndiceBinario.abre(args[1]);
+	    for(int i = 2; i < args.length; i++)
+		System.out.println(args[i] + ": " + indice.conteo(args[i].toLowerCase()));
+	} catch(IOException e){
+	    e.printStackTrace();
+	    System.exit(1);
 	}
+    }
+
+    /* Compara los vocabularios de dos archivos:
+       compara union|interseccion|diferencia A B [--lado-a-lado]
+       Escribe en Resultado.txt las palabras del resultado con la suma de sus
+       apariciones en los dos archivos o, con --lado-a-lado, con ambas. */
+    private static void compara(String args[]){
+	boolean ladoALado = args.length == 5 && args[4].equals("--lado-a-lado");
+	if(args.length != 4 && !ladoALado){
+	    System.out.println("Uso: compara union|interseccion|diferencia <archivo> <archivo> [--lado-a-lado]");
+	    System.exit(1);
+	}
+	ArbolRojinegro<String> a = new ArbolRojinegro<String>();
+	ArbolRojinegro<String> b = new ArbolRojinegro<String>();
+	TablaPalabras conteosA = new TablaPalabras();
+	TablaPalabras conteosB = new TablaPalabras();
+	Tokenizador tokenizador = new Tokenizador();
+	Charset codificacion = Charset.defaultCharset();
+	try{
+	    leePalabras(args[2], codificacion, tokenizador, a, conteosA, palabra -> palabra, null, SIN_AGREGADORES);
+	    leePalabras(args[3], codificacion, tokenizador, b, conteosB, palabra -> palabra, null, SIN_AGREGADORES);
+	    ArbolRojinegro<String> resultado = null;
+	    switch(args[1]){
+	    case "union": resultado = a.union(b); break;
+	    case "interseccion": resultado = a.interseccion(b); break;
+	    case "diferencia": resultado = a.diferencia(b); break;
+	    default:
+		System.out.println("Operación desconocida: " + args[1]);
+		System.exit(1);
+	    }
+	    FileWriter writer = new FileWriter("Resultado.txt", codificacion);
+	    writer.write("Número de palabtras diferentes: "+ resultado.getElementos() + "\n");
+	    for(String palabra: resultado){
+		int x = conteosA.conteo(palabra), y = conteosB.conteo(palabra);
+		writer.write(palabra + ": " + (ladoALado ? x + " " + y : String.valueOf(x + y)) + "\n");
+	    }
+	    writer.close();
+	    System.out.println("Lista escrita en Resultado.txt");
+	} catch(IOException e){
+	    e.printStackTrace();
+	    System.exit(1);
+	}
+    }
+
+    /* Lee el archivo y cuenta sus palabras en el diccionario, agregando al
+       árbol cada palabra nueva convertida con la función recibida. Cada línea
+       y cada palabra contada se pasan también a los agregadores. */
+    private static <E extends Comparable<E>> void leePalabras(String archivo, Charset codificacion,
+							     Tokenizador tokenizador,
+							     Coleccion<E> arbol,
+							     TablaPalabras diccionario,
+							     Function<String,E> elemento,
+							     FiltroPalabras filtro,
+							     Agregador[] agregadores) throws IOException {
+	BufferedReader lectura = abre(archivo, codificacion);
+	String linea;
+	while((linea=lectura.readLine()) != null)
+	    analizaLinea(linea,tokenizador,arbol,diccionario,elemento,filtro,agregadores);
 	lectura.close();
+    }
+
+    /* Cuenta las palabras del archivo y las escribe en orden en
+       Resultado.txt (o Resultado.csv, .json o .bin, según el formato),
+       guardándolas en la colección del motor pedido. Cada palabra nueva se
+       convierte con la función recibida antes de agregarla al árbol, lo que
+       determina el orden de la salida. En modo Unicode el archivo se lee y se
+       escribe en UTF-8. Si se recibe un nombre de índice, también se escribe
+       el índice binario. Las palabras que rechaza el filtro (si no es null)
+       no se cuentan, y al final se quitan del árbol las que aparecen menos de
+       mínimo veces. Si hay agregadores, sus resultados se escriben en
+       Estadisticas.txt. Si hay contador de secciones, las tablas de cada
+       sección se escriben en Secciones.txt desde el mismo recorrido del árbol
+       que escribe la tabla global. Si se piden concordancias, se construye en
+       la misma lectura un índice posicional y las primeras apariciones de
+       cada palabra pedida se escriben en Concordancias.txt. */
+    private static <E extends Comparable<E>> void cuentaPalabras(String archivo,
+								Function<String,E> elemento,
+								boolean unicode,
+								String motor,
+								String indice,
+								FiltroPalabras filtro,
+								int minimo,
+								Agregador[] agregadores,
+								ContadorSecciones secciones,
+								List<String> concordancias,
+								int limite,
+								FormatoSalida formato){
+	Coleccion<E> arbol = nuevaColeccion(motor);
+	TablaPalabras diccionario= new TablaPalabras();
+	Tokenizador tokenizador = new Tokenizador(unicode);
+	Charset codificacion = unicode ? StandardCharsets.UTF_8 : Charset.defaultCharset();
+	Agregador[] lectura = agregadores;
+	if(secciones != null){
+	    lectura = Arrays.copyOf(lectura, lectura.length + 1);
+	    lectura[lectura.length - 1] = secciones;
+	}
+	IndicePosicional posiciones = null;
+	try{
+	    if(!concordancias.isEmpty()){
+		posiciones = new IndicePosicional(archivo, codificacion, tokenizador, diccionario);
+		lectura = Arrays.copyOf(lectura, lectura.length + 1);
+		lectura[lectura.length - 1] = posiciones;
+	    }
+	    leePalabras(archivo, codificacion, tokenizador, arbol, diccionario, elemento, filtro,
+			lectura);
 	}
 	catch(IOException e){
 	    e.printStackTrace(); 
             System.exit(1);
 	}
+	if(minimo > 1)
+	    arbol.eliminaSi(e -> diccionario.conteo(e.toString()) < minimo);
 	try{
-	    FileWriter writer = new FileWriter("Resultado.txt");
-	    writer.write("Número de palabtras diferentes: "+ diccionario.size() + "\n");
-	    arbol.dfsInOrder(new  AccionVerticeArbolBinario<String>(){
-		 @Override
-		 public void actua(VerticeArbolBinario<String> vertice){
-		     try{
-			 writer.write(vertice.get() + ": " + diccionario.get(vertice.get()) + "\n");
-			 
-		     } catch(IOException e){
-			 e.printStackTrace();
-			 System.exit(1);
-		     }
-		 }
-	    });
-	    writer.close();
-	    System.out.println("Lista escrita en Resultado.txt");
+	    int n = arbol.getElementos(), i = 0;
+	    String[] palabras = new String[n];
+	    int[] conteos = new int[n];
+	    for(E e: arbol){
+		String palabra = e.toString();
+		int id = diccionario.busca(palabra);
+		palabras[i] = palabra;
+		conteos[i++] = diccionario.conteo(id);
+		if(secciones != null)
+		    secciones.agrega(palabra, id);
+	    }
+	    String resultado = "Resultado." + formato.getExtension();
+	    EscritorResultados.escribe(resultado, formato, codificacion, palabras, conteos, n);
+	    System.out.println("Lista escrita en " + resultado);
+	    if(secciones != null){
+		FileWriter tablas = new FileWriter("Secciones.txt", codificacion);
+		secciones.escribe(tablas);
+		tablas.close();
+		System.out.println(secciones.getSecciones() + " secciones escritas en Secciones.txt");
+	    }
+	    if(posiciones != null){
+		FileWriter kwic = new FileWriter("Concordancias.txt", codificacion);
+		for(String palabra: concordancias){
+		    kwic.write(palabra + ": " + posiciones.apariciones(palabra) + "\n");
+		    posiciones.concordancias(palabra, limite, CONTEXTO, kwic);
+		}
+		kwic.close();
+		System.out.println("Concordancias escritas en Concordancias.txt");
+	    }
+	    if(agregadores.length > 0){
+		FileWriter estadisticas = new FileWriter("Estadisticas.txt", codificacion);
+		for(Agregador agregador: agregadores)
+		    agregador.escribe(estadisticas);
+		estadisticas.close();
+		System.out.println("Estadísticas escritas en Estadisticas.txt");
+	    }
+	    if(indice != null){
+		IndiceBinario.escribe(indice, arbol, diccionario);
+		System.out.println("Índice escrito en " + indice);
+	    }
 	} catch(IOException e){
 	    e.printStackTrace();
             System.exit(1);
 	}
     }
 
-    private static void analizaLinea(String linea, ArbolRojinegro arbol, HashMap<String,Integer> dicc){
-	String[] lista = linea.split("\\W+");
-	for (String s: lista){
-	    if(s.equals("") ||s.equals("\n") || s.equals(" ") || isNumeric(s)){
-		//System.out.println(s);
-		continue;
+    /* Estima el número de palabras distintas y sus frecuencias con memoria
+       fija, y escribe las estimaciones en Resultado.txt con las frecuencias
+       de las palabras recibidas y, si top es mayor que 0, las top palabras
+       más frecuentes. Como la entrada puede no terminar, las estimaciones se
+       publican mientras se lee, como las instantáneas de cuentaContinuo,
+       cada que pasa el intervalo o se cuentan cada palabras (si cada es
+       mayor que 0). En modo Unicode el archivo se lee y se escribe en
+       UTF-8. */
+    private static void cuentaAproximado(String archivo, boolean unicode,
+					 double errorDistintas, double errorFrecuencias,
+					 FiltroPalabras filtro, List<String> palabras, int top,
+					 boolean seguir, long intervalo, long cada){
+	Charset codificacion = unicode ? StandardCharsets.UTF_8 : Charset.defaultCharset();
+	ContadorAproximado contador = null;
+	try{
+	    contador = new ContadorAproximado(errorDistintas, errorFrecuencias,
+					      new Tokenizador(unicode), filtro, top);
+	} catch(IllegalArgumentException e){
+	    System.out.println(e.getMessage());
+	    System.exit(1);
+	}
+	Path destino = Paths.get("Resultado.txt").toAbsolutePath();
+	try{
+	    Reader entrada = archivo.equals("-") ?
+		new InputStreamReader(System.in, codificacion) :
+		new FileReader(archivo, codificacion);
+	    LectorContinuo lector = new LectorContinuo(entrada, seguir);
+	    long ultima = System.currentTimeMillis(), publicadas = 0;
+	    while(!lector.terminado()){
+		String linea = lector.siguiente(ultima + intervalo - System.currentTimeMillis());
+		if(linea != null)
+		    contador.analizaLinea(linea);
+		long ahora = System.currentTimeMillis();
+		long nuevas = contador.getPalabras() - publicadas;
+		if(nuevas > 0 && (ahora - ultima >= intervalo || (cada > 0 && nuevas >= cada))){
+		    publicaEstimaciones(contador, palabras, destino, codificacion);
+		    publicadas = contador.getPalabras();
+		    ultima = ahora;
+		} else if(ahora - ultima >= intervalo)
+		    ultima = ahora;
 	    }
-	    Integer num= dicc.get(s.toLowerCase());
-	    if(num==null){
-		arbol.agrega(s.toLowerCase());
-		dicc.put(s.toLowerCase(),1);
+	    publicaEstimaciones(contador, palabras, destino, codificacion);
+	    System.out.println("Estimaciones escritas en Resultado.txt");
+	} catch(IOException e){
+	    e.printStackTrace();
+	    System.exit(1);
+	} catch(InterruptedException e){
+	    Thread.currentThread().interrupt();
+	}
+    }
+
+    /* Escribe las estimaciones actuales en un archivo temporal y lo renombra
+       sobre el destino. */
+    private static void publicaEstimaciones(ContadorAproximado contador, List<String> palabras,
+					    Path destino, Charset codificacion) throws IOException {
+	Path temporal = Files.createTempFile(destino.getParent(),
+					     destino.getFileName().toString(), ".tmp");
+	try{
+	    try(Writer writer = new BufferedWriter(new OutputStreamWriter(
+			Files.newOutputStream(temporal), codificacion))){
+		contador.escribe(writer, palabras);
 	    }
-	    else
-		dicc.replace(s.toLowerCase(),num+1);
+	    PublicadorInstantaneas.reemplaza(temporal, destino);
+	} finally{
+	    Files.deleteIfExists(temporal);
 	}
     }
+
+    /* Cuenta las palabras mientras llegan y publica instantáneas de
+       Resultado.txt (o Resultado.csv, .json o .bin, según el formato) cada
+       que pasa el intervalo o se cuentan cada palabras (si cada es mayor que
+       0). Las instantáneas omiten las palabras que aparecen menos de mínimo
+       veces. Si se sigue el archivo, al llegar al final se espera a que
+       crezca en lugar de terminar. */
+    private static <E extends Comparable<E>> void cuentaContinuo(String archivo,
+								Function<String,E> elemento,
+								boolean unicode,
+								String motor,
+								FiltroPalabras filtro,
+								int minimo,
+								FormatoSalida formato,
+								boolean seguir,
+								long intervalo,
+								long cada){
+	Coleccion<E> arbol = nuevaColeccion(motor);
+	TablaPalabras diccionario = new TablaPalabras();
+	Tokenizador tokenizador = new Tokenizador(unicode);
+	Charset codificacion = unicode ? StandardCharsets.UTF_8 : Charset.defaultCharset();
+	String resultado = "Resultado." + formato.getExtension();
+	PublicadorInstantaneas<E> publicador =
+	    new PublicadorInstantaneas<E>(resultado, formato, codificacion, minimo, arbol,
+					  diccionario);
+	Agregador[] lectura = { publicador };
+	try{
+	    Reader entrada = archivo.equals("-") ?
+		new InputStreamReader(System.in, codificacion) :
+		new FileReader(archivo, codificacion);
+	    LectorContinuo lector = new LectorContinuo(entrada, seguir);
+	    long ultima = System.currentTimeMillis();
+	    while(!lector.terminado()){
+		String linea = lector.siguiente(ultima + intervalo - System.currentTimeMillis());
+		if(linea != null)
+		    analizaLinea(linea, tokenizador, arbol, diccionario, elemento, filtro, lectura);
+		long ahora = System.currentTimeMillis();
+		if(publicador.pendiente() &&
+		   (ahora - ultima >= intervalo || (cada > 0 && publicador.getTokens() >= cada))){
+		    publicador.publica();
+		    ultima = ahora;
+		} else if(ahora - ultima >= intervalo)
+		    ultima = ahora;
+	    }
+	    publicador.publica();
+	    System.out.println("Lista escrita en " + resultado);
+	} catch(IOException e){
+	    e.printStackTrace();
+	    System.exit(1);
+	} catch(InterruptedException e){
+	    Thread.currentThread().interrupt();
+	}
+    }
+
+    /* Abre el archivo para leerlo por líneas; "-" es la entrada estándar. */
+    private static BufferedReader abre(String archivo, Charset codificacion) throws IOException {
+	if(archivo.equals("-"))
+	    return new BufferedReader(new InputStreamReader(System.in, codificacion));
+	return new BufferedReader(new FileReader(archivo, codificacion));
+    }
+
+    /* Atiende consultas sobre el índice del archivo, sin las palabras que
+       rechaza el filtro (si no es null). Si se recibe un directorio, se
+       pueden indexar otros archivos de ese directorio. */
+    private static void sirve(String archivo, int puerto, FiltroPalabras filtro,
+			      String directorio){
+	try{
+	    ServidorConsultas servidor = new ServidorConsultas(puerto,
+							       Indice.construye(archivo, filtro),
+							       filtro, directorio);
+	    servidor.inicia();
+	    System.out.println("Atendiendo consultas en http://localhost:" + puerto + "/");
+	} catch(IOException e){
+	    e.printStackTrace();
+	    System.exit(1);
+	}
+    }
+
+    /* Cuenta los n-gramas del archivo formados con las palabras que no
+       rechaza el filtro (si no es null). */
+    private static void cuentaNGramas(String archivo, int n, FiltroPalabras filtro){
+	ContadorNGramas contador = new ContadorNGramas(n, filtro);
+	try{
+	    BufferedReader lectura = new BufferedReader(new FileReader(archivo));
+	    String linea;
+	    while((linea=lectura.readLine()) != null)
+		contador.analizaLinea(linea);
+	    lectura.close();
+	    FileWriter writer = new FileWriter("Resultado.txt");
+	    contador.escribe(writer);
+	    writer.close();
+	    System.out.println("Lista escrita en Resultado.txt");
+	} catch(IOException e){
+	    e.printStackTrace();
+	    System.exit(1);
+	}
+    }
+
+    /* Regresa una colección ordenada vacía del motor recibido: un árbol
+       rojinegro, un árbol B+ o un árbol splay. */
+    private static <E extends Comparable<E>> Coleccion<E> nuevaColeccion(String motor){
+	if(motor.equals("arbolb"))
+	    return new ArbolB<E>();
+	if(motor.equals("splay"))
+	    return new ArbolSplay<E>();
+	return new ArbolRojinegro<E>();
+    }
+
+    private static <E extends Comparable<E>> void analizaLinea(String linea, Tokenizador tokenizador,
+							      Coleccion<E> arbol, TablaPalabras dicc,
+							      Function<String,E> elemento,
+							      FiltroPalabras filtro,
+							      Agregador[] agregadores){
+	for(Agregador agregador: agregadores)
+	    agregador.linea(linea);
+	tokenizador.analiza(linea, (buffer, longitud) -> {
+		if(filtro != null && filtro.rechaza(buffer, longitud))
+		    return;
+		int id = dicc.incrementa(buffer, longitud);
+		int conteo = dicc.conteo(id);
+		if(conteo == 1)
+		    arbol.agrega(elemento.apply(dicc.palabra(id)));
+		for(Agregador agregador: agregadores)
+		    agregador.token(buffer, longitud, id, conteo);
+	    });
+    }
     public static boolean isNumeric(String str) { 
 	try {  
 	    Double.parseDouble(str);  
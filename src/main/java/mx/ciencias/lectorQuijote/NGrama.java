@@ -0,0 +1,132 @@
+package mx.ciencias.lectorQuijote;
+
+import mx.ciencias.TablaPalabras;
+
+/**
+ * <p>Clase para n-gramas (bigramas y trigramas) representados como una llave
+ * empacada de tipo <code>long</code> con los identificadores de sus
+ * palabras.</p>
+ *
+ * <p>Los bigramas usan 32 bits por identificador; los trigramas usan 21 bits
+ * por identificador, así que admiten vocabularios de hasta 2<sup>21</sup>
+ * palabras distintas. Los n-gramas se comparan alfabéticamente palabra por
+ * palabra, sin construir la cadena completa.</p>
+ */
+public class NGrama implements Comparable<NGrama> {
+
+    /* Bits por identificador en un trigrama. */
+    private static final int BITS_TRIGRAMA = 21;
+    /* Máscara para un identificador en un trigrama. */
+    private static final long MASCARA_TRIGRAMA = (1L << BITS_TRIGRAMA) - 1;
+
+    /* La llave empacada. */
+    private long llave;
+    /* El número de palabras del n-grama. */
+    private int n;
+    /* La tabla que traduce identificadores a palabras. */
+    private TablaPalabras tabla;
+
+    /**
+     * Construye un n-grama a partir de su llave empacada.
+     * @param llave la llave empacada con {@link #empaca}.
+     * @param n el número de palabras del n-grama (2 o 3).
+     * @param tabla la tabla con las palabras de los identificadores.
+     */
+    public NGrama(long llave, int n, TablaPalabras tabla) {
+	this.llave = llave;
+	this.n = n;
+	this.tabla = tabla;
+    }
+
+    /**
+     * Empaca los últimos <code>n</code> identificadores de una ventana en una
+     * sola llave no negativa.
+     * @param ventana los identificadores, del más viejo al más reciente.
+     * @param n el número de palabras del n-grama (2 o 3).
+     * @return la llave empacada.
+     * @throws IllegalArgumentException si <code>n</code> no es 2 ni 3.
+     * @throws IllegalStateException si algún identificador no cabe en la
+     *         llave de un trigrama.
+     */
+    public static long empaca(int[] ventana, int n) {
+	if(n == 2)
+	    return ((long)ventana[0] << 32) | ventana[1];
+	if(n != 3)
+	    throw new IllegalArgumentException("Sólo hay bigramas y trigramas.");
+	long llave = 0;
+	for(int i = 0; i < 3; i++){
+	    if(ventana[i] > MASCARA_TRIGRAMA)
+		throw new IllegalStateException("Vocabulario demasiado grande " +
+						"para contar trigramas.");
+	    llave = (llave << BITS_TRIGRAMA) | ventana[i];
+	}
+	return llave;
+    }
+
+    /**
+     * Regresa el identificador de la <code>i</code>-ésima palabra del n-grama.
+     * @param i el índice de la palabra, empezando en 0.
+     * @return el identificador de la palabra.
+     */
+    public int id(int i) {
+	if(n == 2)
+	    return (int)(i == 0 ? llave >>> 32 : llave & 0xffffffffL);
+	return (int)((llave >>> (BITS_TRIGRAMA * (2 - i))) & MASCARA_TRIGRAMA);
+    }
+
+    /**
+     * Regresa la llave empacada del n-grama.
+     * @return la llave empacada del n-grama.
+     */
+    public long getLlave() {
+	return llave;
+    }
+
+    /**
+     * Compara alfabéticamente el n-grama con otro, palabra por palabra.
+     * @param ngrama el n-grama con el que se compara.
+     * @return un entero negativo, cero o positivo si este n-grama es menor,
+     *         igual o mayor que el recibido.
+     */
+    @Override public int compareTo(NGrama ngrama) {
+	for(int i = 0; i < n; i++){
+	    int a = id(i), b = ngrama.id(i);
+	    if(a == b)
+		continue;
+	    return tabla.palabra(a).compareTo(tabla.palabra(b));
+	}
+	return 0;
+    }
+
+    /**
+     * Nos dice si el n-grama es igual a un objeto.
+     * @param objeto el objeto con el que se compara.
+     * @return <code>true</code> si el objeto es un n-grama con la misma llave;
+     *         <code>false</code> en otro caso.
+     */
+    @Override public boolean equals(Object objeto) {
+	if(objeto == null || getClass() != objeto.getClass())
+	    return false;
+	NGrama ngrama = (NGrama)objeto;
+	return llave == ngrama.llave && n == ngrama.n;
+    }
+
+    /**
+     * Regresa un código de dispersión para el n-grama.
+     * @return un código de dispersión para el n-grama.
+     */
+    @Override public int hashCode() {
+	return Long.hashCode(llave);
+    }
+
+    /**
+     * Regresa las palabras del n-grama separadas por espacios.
+     * @return una representación en cadena del n-grama.
+     */
+    @Override public String toString() {
+	String res = tabla.palabra(id(0));
+	for(int i = 1; i < n; i++)
+	    res += " " + tabla.palabra(id(i));
+	return res;
+    }
+}
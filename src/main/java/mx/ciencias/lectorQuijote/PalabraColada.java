@@ -0,0 +1,79 @@
+package mx.ciencias.lectorQuijote;
+
+import java.util.Arrays;
+
+/**
+ * <p>Clase para palabras ordenadas con las reglas de un idioma.</p>
+ *
+ * <p>Cada palabra guarda la llave binaria que le asigna una {@link Colacion}
+ * al construirse, así que comparar dos palabras es comparar dos arreglos de
+ * bytes sin signo, sin volver a consultar las reglas del idioma. Si dos
+ * palabras distintas tienen la misma llave (por ejemplo, si sólo difieren en
+ * mayúsculas), se desempata con el orden de {@link String}.</p>
+ */
+public class PalabraColada implements Comparable<PalabraColada> {
+
+    /* La palabra. */
+    private String palabra;
+    /* La llave de colación de la palabra. */
+    private byte[] llave;
+
+    /**
+     * Construye una palabra con su llave de colación.
+     * @param palabra la palabra.
+     * @param llave la llave de colación de la palabra.
+     */
+    public PalabraColada(String palabra, byte[] llave) {
+	this.palabra = palabra;
+	this.llave = llave;
+    }
+
+    /**
+     * Regresa la palabra.
+     * @return la palabra.
+     */
+    public String getPalabra() {
+	return palabra;
+    }
+
+    /**
+     * Compara la palabra con otra usando sus llaves de colación.
+     * @param otra la palabra con la que se compara.
+     * @return un entero negativo, cero o positivo si esta palabra va antes,
+     *         en el mismo lugar o después que la recibida.
+     */
+    @Override public int compareTo(PalabraColada otra) {
+	int c = Arrays.compareUnsigned(llave, otra.llave);
+	if(c != 0)
+	    return c;
+	return palabra.compareTo(otra.palabra);
+    }
+
+    /**
+     * Nos dice si la palabra es igual a un objeto.
+     * @param objeto el objeto con el que se compara.
+     * @return <code>true</code> si el objeto es una palabra colada con la
+     *         misma palabra; <code>false</code> en otro caso.
+     */
+    @Override public boolean equals(Object objeto) {
+	if(objeto == null || getClass() != objeto.getClass())
+	    return false;
+	return palabra.equals(((PalabraColada)objeto).palabra);
+    }
+
+    /**
+     * Regresa un código de dispersión para la palabra.
+     * @return un código de dispersión para la palabra.
+     */
+    @Override public int hashCode() {
+	return palabra.hashCode();
+    }
+
+    /**
+     * Regresa la palabra.
+     * @return la palabra.
+     */
+    @Override public String toString() {
+	return palabra;
+    }
+}
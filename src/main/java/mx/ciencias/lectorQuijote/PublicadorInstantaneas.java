@@ -0,0 +1,200 @@
+package mx.ciencias.lectorQuijote;
+
+import mx.ciencias.Coleccion;
+import mx.ciencias.TablaPalabras;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <p>Clase para publicar instantáneas de los conteos mientras se sigue
+ * contando.</p>
+ *
+ * <p>El publicador es un {@link Agregador}: anota qué palabras cambiaron
+ * desde la última instantánea. Cada instantánea se escribe completa en un
+ * archivo temporal en el mismo directorio del destino y después se renombra
+ * sobre el destino, así que quien lee el destino siempre ve una instantánea
+ * entera. Las instantáneas usan el mismo {@link FormatoSalida} que la lista
+ * final y omiten las palabras con menos apariciones que el mínimo, sin
+ * quitarlas del árbol porque todavía pueden llegar al mínimo. La entrada de
+ * cada palabra se guarda ya formateada y sólo se vuelve a formatear si la
+ * palabra cambió; una instantánea sólo recorre el árbol y copia las
+ * entradas.</p>
+ */
+public class PublicadorInstantaneas<E> implements Agregador {
+
+    /* La capacidad inicial del buffer de escritura. */
+    private static final int CAPACIDAD = 1 << 20;
+
+    /* El archivo donde se publican las instantáneas. */
+    private Path destino;
+    /* El formato de las instantáneas. */
+    private FormatoSalida formato;
+    /* El mínimo de apariciones de las palabras que se publican. */
+    private int minimo;
+    /* El buffer donde se formatean las instantáneas. */
+    private BufferBytes buffer;
+    /* El buffer donde se formatea una sola entrada. */
+    private BufferBytes entrada;
+    /* Las palabras en orden. */
+    private Coleccion<E> arbol;
+    /* Los conteos de las palabras. */
+    private TablaPalabras diccionario;
+    /* La entrada formateada de cada palabra, por identificador, como si no
+       fuera la primera de la lista. */
+    private byte[][] entradas;
+    /* Si cada palabra cambió desde la última instantánea. */
+    private boolean[] cambiadas;
+    /* Los identificadores de las palabras que cambiaron. */
+    private int[] cambios;
+    /* El número de palabras que cambiaron. */
+    private int numeroCambios;
+    /* Las palabras contadas desde la última instantánea. */
+    private long tokens;
+
+    /**
+     * Construye un publicador.
+     * @param destino el archivo donde se publican las instantáneas.
+     * @param formato el formato de las instantáneas.
+     * @param codificacion la codificación pedida para las cadenas; el formato
+     *        puede usar otra.
+     * @param minimo el mínimo de apariciones de las palabras que se publican.
+     * @param arbol el árbol con las palabras en orden.
+     * @param diccionario la tabla con los conteos de las palabras.
+     */
+    public PublicadorInstantaneas(String destino, FormatoSalida formato, Charset codificacion,
+				  int minimo, Coleccion<E> arbol, TablaPalabras diccionario) {
+	this.destino = Paths.get(destino).toAbsolutePath();
+	this.formato = formato;
+	this.minimo = minimo;
+	this.arbol = arbol;
+	this.diccionario = diccionario;
+	Charset c = formato.codificacion(codificacion);
+	buffer = new BufferBytes(CAPACIDAD, c);
+	entrada = new BufferBytes(64, c);
+	entradas = new byte[1024][];
+	cambiadas = new boolean[1024];
+	cambios = new int[1024];
+    }
+
+    @Override public void token(char[] buffer, int longitud, int id, int conteo) {
+	tokens++;
+	if(id >= cambiadas.length){
+	    int n = Math.max(2 * cambiadas.length, id + 1);
+	    entradas = Arrays.copyOf(entradas, n);
+	    cambiadas = Arrays.copyOf(cambiadas, n);
+	}
+	if(cambiadas[id])
+	    return;
+	cambiadas[id] = true;
+	if(numeroCambios == cambios.length)
+	    cambios = Arrays.copyOf(cambios, 2 * cambios.length);
+	cambios[numeroCambios++] = id;
+    }
+
+    /**
+     * Regresa el número de palabras contadas desde la última instantánea.
+     * @return el número de palabras contadas desde la última instantánea.
+     */
+    public long getTokens() {
+	return tokens;
+    }
+
+    /**
+     * Nos dice si hay cambios sin publicar.
+     * @return <code>true</code> si hay cambios sin publicar,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean pendiente() {
+	return numeroCambios > 0;
+    }
+
+    /**
+     * Publica una instantánea de los conteos actuales.
+     * @throws IOException si ocurre un error al escribir o renombrar.
+     */
+    public void publica() throws IOException {
+	Path temporal = Files.createTempFile(destino.getParent(),
+					     destino.getFileName().toString(), ".tmp");
+	try{
+	    try(FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE,
+						      StandardOpenOption.TRUNCATE_EXISTING)){
+		formato.inicio(buffer, publicables());
+		boolean primera = true;
+		for(E elemento: arbol){
+		    String palabra = elemento.toString();
+		    int id = diccionario.busca(palabra);
+		    int conteo = diccionario.conteo(id);
+		    if(conteo < minimo)
+			continue;
+		    if(cambiadas[id] || entradas[id] == null){
+			entrada.limpia();
+			formato.entrada(entrada, palabra, conteo, false);
+			entradas[id] = entrada.getBytes();
+		    }
+		    if(primera){
+			formato.entrada(buffer, palabra, conteo, true);
+			primera = false;
+		    } else
+			buffer.agrega(entradas[id]);
+		    if(buffer.getLongitud() >= CAPACIDAD){
+			buffer.escribe(canal);
+			buffer.limpia();
+		    }
+		}
+		formato.fin(buffer);
+		buffer.escribe(canal);
+	    } finally{
+		buffer.limpia();
+	    }
+	    reemplaza(temporal, destino);
+	} finally{
+	    Files.deleteIfExists(temporal);
+	}
+	for(int i = 0; i < numeroCambios; i++)
+	    cambiadas[cambios[i]] = false;
+	numeroCambios = 0;
+	tokens = 0;
+    }
+
+    /**
+     * Renombra un archivo sobre otro del mismo directorio, de forma atómica
+     * si el sistema de archivos lo permite, para que quien lee el destino
+     * nunca lo vea a medias.
+     * @param temporal el archivo ya escrito.
+     * @param destino el archivo que se reemplaza.
+     * @throws IOException si ocurre un error al renombrar.
+     */
+    public static void reemplaza(Path temporal, Path destino) throws IOException {
+	try{
+	    Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING,
+		       StandardCopyOption.ATOMIC_MOVE);
+	} catch(AtomicMoveNotSupportedException e){
+	    Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+	}
+    }
+
+    /* Regresa el número de palabras con al menos el mínimo de apariciones. */
+    private int publicables() {
+	if(minimo <= 1)
+	    return arbol.getElementos();
+	int n = 0;
+	for(E elemento: arbol)
+	    if(diccionario.conteo(elemento.toString()) >= minimo)
+		n++;
+	return n;
+    }
+
+    /**
+     * No hace nada; las instantáneas se escriben con {@link #publica}.
+     * @param salida no se usa.
+     */
+    @Override public void escribe(Appendable salida) {}
+}
@@ -0,0 +1,284 @@
+package mx.ciencias.lectorQuijote;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>Clase para servidores HTTP locales que responden consultas sobre un
+ * {@link Indice} residente en memoria.</p>
+ *
+ * <p>El índice se construye una sola vez y las consultas lo leen sin
+ * sincronizarse desde un grupo de hilos. Indexar un archivo nuevo construye
+ * otro índice en un hilo aparte y lo publica al terminar con una sola
+ * escritura volátil, así que las consultas nunca esperan a la indexación.</p>
+ *
+ * <p>Las rutas son:</p>
+ * <ul>
+ *   <li><code>/cuenta?palabra=P</code>: las apariciones de una palabra.</li>
+ *   <li><code>/prefijo?p=P&amp;limite=N</code>: las palabras con un
+ *       prefijo.</li>
+ *   <li><code>/rango?desde=A&amp;hasta=B&amp;limite=N</code>: las palabras
+ *       entre dos palabras.</li>
+ *   <li><code>/top?k=K</code>: las <em>k</em> palabras más frecuentes.</li>
+ *   <li><code>POST /indexa?archivo=A</code>: reemplaza el índice por el de
+ *       otro archivo, que debe estar en el directorio indexable.</li>
+ * </ul>
+ * <p>Las respuestas son texto en UTF-8 con una palabra por línea.</p>
+ *
+ * <p>El servidor sólo escucha en la interfaz local, pero una página web
+ * abierta en la misma máquina también puede hacerle peticiones. Por eso
+ * rechaza las peticiones cuyo encabezado <code>Host</code> (u
+ * <code>Origin</code>, si lo hay) no es local, lo que impide leer las
+ * respuestas con <em>DNS rebinding</em>; <code>/indexa</code> sólo acepta
+ * <code>POST</code> y sólo indexa archivos dentro de un directorio dado al
+ * construir el servidor, y sin directorio está desactivada.</p>
+ */
+public class ServidorConsultas {
+
+    /* Límite de palabras por omisión en listados. */
+    private static final int LIMITE = 1000;
+
+    /* El índice que se consulta. */
+    private volatile Indice indice;
+    /* El servidor HTTP. */
+    private HttpServer servidor;
+    /* El hilo que construye índices nuevos. */
+    private ExecutorService indexador;
+    /* El filtro de palabras de los índices nuevos, o null. */
+    private FiltroPalabras filtro;
+    /* El directorio de los archivos que se pueden indexar, o null. */
+    private Path directorio;
+
+    /**
+     * Construye un servidor que escucha en la interfaz local.
+     * @param puerto el puerto donde escucha el servidor.
+     * @param indice el índice inicial.
+     * @throws IOException si no se puede abrir el puerto.
+     */
+    public ServidorConsultas(int puerto, Indice indice) throws IOException {
+	this(puerto, indice, null, null);
+    }
+
+    /**
+     * Construye un servidor que escucha en la interfaz local, que puede
+     * indexar los archivos de un directorio y que construye los índices
+     * nuevos sin las palabras que rechaza un filtro.
+     * @param puerto el puerto donde escucha el servidor.
+     * @param indice el índice inicial.
+     * @param filtro el filtro de palabras de los índices nuevos, o
+     *        <code>null</code>.
+     * @param directorio el directorio de los archivos que se pueden indexar,
+     *        o <code>null</code> para desactivar <code>/indexa</code>.
+     * @throws IOException si no se puede abrir el puerto o el directorio no
+     *         existe.
+     */
+    public ServidorConsultas(int puerto, Indice indice, FiltroPalabras filtro,
+			     String directorio) throws IOException {
+	this.indice = indice;
+	this.filtro = filtro;
+	if(directorio != null)
+	    this.directorio = Paths.get(directorio).toRealPath();
+	servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+							   puerto), 0);
+	servidor.createContext("/cuenta", local(this::cuenta));
+	servidor.createContext("/prefijo", local(this::prefijo));
+	servidor.createContext("/rango", local(this::rango));
+	servidor.createContext("/top", local(this::top));
+	servidor.createContext("/indexa", local(this::indexa));
+	servidor.setExecutor(Executors.newFixedThreadPool(Runtime.getRuntime()
+							 .availableProcessors()));
+	indexador = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Empieza a atender consultas.
+     */
+    public void inicia() {
+	servidor.start();
+    }
+
+    /**
+     * Deja de atender consultas y termina los hilos del servidor.
+     */
+    public void detiene() {
+	servidor.stop(0);
+	indexador.shutdownNow();
+	((ExecutorService)servidor.getExecutor()).shutdownNow();
+    }
+
+    /* Envuelve un manejador para que rechace las peticiones que no vienen de
+       una página local. */
+    private static HttpHandler local(HttpHandler manejador) {
+	return intercambio -> {
+		String host = intercambio.getRequestHeaders().getFirst("Host");
+		String origen = intercambio.getRequestHeaders().getFirst("Origin");
+		if(!esLocal(host) || (origen != null && !esLocal(anfitrion(origen)))){
+		    responde(intercambio, 403, "Sólo se aceptan peticiones locales\n");
+		    return;
+		}
+		manejador.handle(intercambio);
+	    };
+    }
+
+    /* Regresa el anfitrión y el puerto de un origen, o null si no es un URI
+       válido. */
+    private static String anfitrion(String origen) {
+	try{
+	    return new URI(origen).getRawAuthority();
+	} catch(URISyntaxException e){
+	    return null;
+	}
+    }
+
+    /* Nos dice si un anfitrión, con o sin puerto, es la interfaz local. */
+    private static boolean esLocal(String host) {
+	if(host == null)
+	    return false;
+	String nombre = host;
+	if(host.startsWith("[")){
+	    int fin = host.indexOf(']');
+	    if(fin < 0)
+		return false;
+	    nombre = host.substring(1, fin);
+	} else if(host.indexOf(':') >= 0)
+	    nombre = host.substring(0, host.indexOf(':'));
+	nombre = nombre.toLowerCase();
+	return nombre.equals("localhost") || nombre.equals("127.0.0.1") || nombre.equals("::1");
+    }
+
+    /* Responde las apariciones de una palabra. */
+    private void cuenta(HttpExchange intercambio) throws IOException {
+	String palabra = parametros(intercambio).get("palabra");
+	if(palabra == null){
+	    responde(intercambio, 400, "Falta el parámetro palabra\n");
+	    return;
+	}
+	palabra = palabra.toLowerCase();
+	responde(intercambio, 200, palabra + ": " + indice.conteo(palabra) + "\n");
+    }
+
+    /* Responde las palabras con un prefijo. */
+    private void prefijo(HttpExchange intercambio) throws IOException {
+	Map<String,String> parametros = parametros(intercambio);
+	String p = parametros.get("p");
+	if(p == null){
+	    responde(intercambio, 400, "Falta el parámetro p\n");
+	    return;
+	}
+	StringBuilder respuesta = new StringBuilder();
+	indice.prefijo(p.toLowerCase(), entero(parametros.get("limite"), LIMITE), respuesta);
+	responde(intercambio, 200, respuesta.toString());
+    }
+
+    /* Responde las palabras en un rango. */
+    private void rango(HttpExchange intercambio) throws IOException {
+	Map<String,String> parametros = parametros(intercambio);
+	String desde = parametros.getOrDefault("desde", "").toLowerCase();
+	String hasta = parametros.get("hasta");
+	if(hasta != null)
+	    hasta = hasta.toLowerCase();
+	StringBuilder respuesta = new StringBuilder();
+	indice.rango(desde, hasta,
+		     entero(parametros.get("limite"), LIMITE), respuesta);
+	responde(intercambio, 200, respuesta.toString());
+    }
+
+    /* Responde las palabras más frecuentes. */
+    private void top(HttpExchange intercambio) throws IOException {
+	StringBuilder respuesta = new StringBuilder();
+	indice.top(entero(parametros(intercambio).get("k"), 10), respuesta);
+	responde(intercambio, 200, respuesta.toString());
+    }
+
+    /* Indexa otro archivo del directorio indexable en segundo plano; las
+       consultas siguen usando el índice anterior hasta que el nuevo está
+       completo. */
+    private void indexa(HttpExchange intercambio) throws IOException {
+	if(!intercambio.getRequestMethod().equals("POST")){
+	    intercambio.getResponseHeaders().set("Allow", "POST");
+	    responde(intercambio, 405, "Use POST para indexar\n");
+	    return;
+	}
+	if(directorio == null){
+	    responde(intercambio, 403, "La indexación está desactivada\n");
+	    return;
+	}
+	String archivo = parametros(intercambio).get("archivo");
+	if(archivo == null){
+	    responde(intercambio, 400, "Falta el parámetro archivo\n");
+	    return;
+	}
+	Path ruta;
+	try{
+	    ruta = directorio.resolve(archivo).toRealPath();
+	} catch(IOException | RuntimeException e){
+	    responde(intercambio, 404, "No existe el archivo " + archivo + "\n");
+	    return;
+	}
+	if(!ruta.startsWith(directorio)){
+	    responde(intercambio, 403, "El archivo no está en el directorio indexable\n");
+	    return;
+	}
+	indexador.submit(() -> {
+		try{
+		    indice = Indice.construye(ruta.toString(), filtro);
+		} catch(IOException e){
+		    e.printStackTrace();
+		}
+	    });
+	responde(intercambio, 202, "Indexando " + archivo + "\n");
+    }
+
+    /* Decodifica los parámetros de la consulta. */
+    private static Map<String,String> parametros(HttpExchange intercambio) {
+	Map<String,String> parametros = new HashMap<String,String>();
+	String consulta = intercambio.getRequestURI().getRawQuery();
+	if(consulta == null)
+	    return parametros;
+	for(String par: consulta.split("&")){
+	    int i = par.indexOf('=');
+	    if(i < 0)
+		continue;
+	    parametros.put(URLDecoder.decode(par.substring(0, i), StandardCharsets.UTF_8),
+			   URLDecoder.decode(par.substring(i + 1), StandardCharsets.UTF_8));
+	}
+	return parametros;
+    }
+
+    /* Interpreta un entero no negativo, o regresa el valor por omisión. */
+    private static int entero(String valor, int omision) {
+	if(valor == null)
+	    return omision;
+	try{
+	    return Math.max(0, Integer.parseInt(valor));
+	} catch(NumberFormatException e){
+	    return omision;
+	}
+    }
+
+    /* Envía una respuesta de texto. */
+    private static void responde(HttpExchange intercambio, int codigo, String texto)
+	throws IOException {
+	byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+	intercambio.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+	intercambio.sendResponseHeaders(codigo, bytes.length);
+	OutputStream cuerpo = intercambio.getResponseBody();
+	cuerpo.write(bytes);
+	cuerpo.close();
+    }
+}
@@ -0,0 +1,133 @@
+package mx.ciencias.lectorQuijote;
+
+import java.nio.CharBuffer;
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * <p>Clase para separar líneas de texto en palabras.</p>
+ *
+ * <p>Una palabra es una secuencia maximal de letras ASCII, dígitos y guiones
+ * bajos (lo mismo que separar con la expresión <code>\W+</code>); las palabras
+ * que son números se descartan y las demás se pasan en minúsculas. El
+ * tokenizador recorre la línea carácter por carácter y copia cada palabra en
+ * un buffer reutilizable, así que no construye ninguna cadena por palabra.</p>
+ *
+ * <p>En modo Unicode las palabras son secuencias de letras y dígitos de
+ * cualquier alfabeto (incluyendo á, ñ, ü, …), y las palabras de las líneas
+ * que no están en la forma NFC se normalizan a esa forma, para que una letra
+ * acentuada escrita con un acento combinante sea la misma palabra que la
+ * letra precompuesta. Como los acentos combinantes son parte de las palabras,
+ * normalizar cada palabra da lo mismo que normalizar la línea, y las
+ * posiciones de las palabras siguen siendo las de la línea original.</p>
+ */
+public class Tokenizador {
+
+    /* El buffer donde se copia cada palabra. */
+    private char[] buffer;
+    /* Si las palabras pueden tener letras de cualquier alfabeto. */
+    private boolean unicode;
+    /* La posición en la línea del primer carácter de la palabra actual. */
+    private int inicio;
+
+    /**
+     * Constructor sin parámetros. Las palabras sólo tienen letras ASCII.
+     */
+    public Tokenizador() {
+	this(false);
+    }
+
+    /**
+     * Construye un tokenizador.
+     * @param unicode si las palabras pueden tener letras de cualquier
+     *        alfabeto.
+     */
+    public Tokenizador(boolean unicode) {
+	buffer = new char[64];
+	this.unicode = unicode;
+    }
+
+    /* Nos dice si el carácter forma parte de una palabra. */
+    private boolean esDePalabra(char c) {
+	if((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') ||
+	   (c >= '0' && c <= '9') || c == '_')
+	    return true;
+	if(!unicode || c < 0x80)
+	    return false;
+	return Character.isLetterOrDigit(c) ||
+	    Character.getType(c) == Character.NON_SPACING_MARK;
+    }
+
+    /**
+     * Separa una línea en palabras y ejecuta la acción sobre cada una.
+     * @param linea la línea a analizar.
+     * @param accion la acción a realizar sobre cada palabra.
+     */
+    public void analiza(String linea, AccionToken accion) {
+	boolean normaliza = unicode &&
+	    !Normalizer.isNormalized(linea, Normalizer.Form.NFC);
+	int n = linea.length();
+	int i = 0;
+	while(i < n){
+	    while(i < n && !esDePalabra(linea.charAt(i)))
+		i++;
+	    int longitud = 0;
+	    boolean ascii = true;
+	    inicio = i;
+	    while(i < n && esDePalabra(linea.charAt(i))){
+		if(longitud == buffer.length)
+		    buffer = Arrays.copyOf(buffer, longitud * 2);
+		char c = linea.charAt(i++);
+		ascii &= c < 0x80;
+		buffer[longitud++] = c;
+	    }
+	    if(longitud == 0 || esNumero(buffer, longitud))
+		continue;
+	    if(normaliza && !ascii)
+		longitud = normaliza(longitud);
+	    for(int j = 0; j < longitud; j++)
+		if(buffer[j] >= 'A' && buffer[j] <= 'Z')
+		    buffer[j] += 'a' - 'A';
+		else if(unicode && buffer[j] >= 0x80)
+		    buffer[j] = Character.toLowerCase(buffer[j]);
+	    accion.actua(buffer, longitud);
+	}
+    }
+
+    /* Normaliza a NFC los primeros longitud caracteres del buffer y regresa
+       la nueva longitud. */
+    private int normaliza(int longitud) {
+	CharBuffer palabra = CharBuffer.wrap(buffer, 0, longitud);
+	if(Normalizer.isNormalized(palabra, Normalizer.Form.NFC))
+	    return longitud;
+	String normalizada = Normalizer.normalize(palabra, Normalizer.Form.NFC);
+	if(normalizada.length() > buffer.length)
+	    buffer = new char[2 * normalizada.length()];
+	normalizada.getChars(0, normalizada.length(), buffer, 0);
+	return normalizada.length();
+    }
+
+    /**
+     * Regresa la posición en la línea del primer carácter de la palabra que
+     * se está pasando a la acción. Sólo es válida durante la llamada a la
+     * acción.
+     * @return la posición de la palabra actual en la línea.
+     */
+    public int getInicio() {
+	return inicio;
+    }
+
+    /* Nos dice si la palabra es un número para Double.parseDouble. Sólo las
+       palabras que empiezan con dígito, "NaN" e "Infinity" pueden serlo, así
+       que sólo en esos casos se construye la cadena. */
+    private static boolean esNumero(char[] buffer, int longitud) {
+	char c = buffer[0];
+	if(c >= '0' && c <= '9')
+	    return LectorQuijote.isNumeric(new String(buffer, 0, longitud));
+	if(c == 'N' && longitud == 3)
+	    return buffer[1] == 'a' && buffer[2] == 'N';
+	if(c == 'I' && longitud == 8)
+	    return new String(buffer, 0, longitud).equals("Infinity");
+	return false;
+    }
+}